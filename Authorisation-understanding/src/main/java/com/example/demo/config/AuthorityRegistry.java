@@ -0,0 +1,86 @@
+package com.example.demo.config;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared, immutable Spring Security authorities for Keycloak role names.
+ *
+ * Each role gets one "ROLE_" authority and each combination of roles one unmodifiable list, so
+ * converting a token with a known combination creates no new strings or authority objects.
+ * Both maps stop growing at MAX_ENTRIES; past that, authorities are built per call.
+ */
+@Component
+public class AuthorityRegistry {
+
+    private static final int MAX_ENTRIES = 10_000;
+
+    private final ConcurrentHashMap<String, GrantedAuthority> authorities = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<List<String>, List<GrantedAuthority>> authoritySets = new ConcurrentHashMap<>();
+
+    public GrantedAuthority authorityFor(String roleName) {
+        GrantedAuthority authority = authorities.get(roleName);
+        if (authority != null) {
+            return authority;
+        }
+        authority = new SimpleGrantedAuthority("ROLE_" + roleName);
+        if (authorities.size() >= MAX_ENTRIES) {
+            return authority;
+        }
+        GrantedAuthority existing = authorities.putIfAbsent(roleName, authority);
+        return existing != null ? existing : authority;
+    }
+
+    /**
+     * The shared authorities for a roles claim. Entries that are not strings (including nulls) are
+     * ignored; the remaining names are the lookup key, which is the claim's own list when every
+     * entry is a string.
+     */
+    public List<GrantedAuthority> authoritiesFor(Collection<?> roleNames) {
+        List<String> key = stringsOf(roleNames);
+        List<GrantedAuthority> cached = authoritySets.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        List<GrantedAuthority> built = new ArrayList<>(key.size());
+        for (String roleName : key) {
+            built.add(authorityFor(roleName));
+        }
+        built = Collections.unmodifiableList(built);
+        if (authoritySets.size() >= MAX_ENTRIES) {
+            return built;
+        }
+        List<GrantedAuthority> existing = authoritySets.putIfAbsent(List.copyOf(key), built);
+        return existing != null ? existing : built;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> stringsOf(Collection<?> values) {
+        if (values instanceof List<?> list && allStrings(list)) {
+            return (List<String>) list;
+        }
+        List<String> strings = new ArrayList<>(values.size());
+        for (Object value : values) {
+            if (value instanceof String name) {
+                strings.add(name);
+            }
+        }
+        return strings;
+    }
+
+    private static boolean allStrings(List<?> values) {
+        for (Object value : values) {
+            if (!(value instanceof String)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -2,13 +2,11 @@ package com.example.demo.config;
 
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Component;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
+import java.util.Collections;
 import java.util.Map;
 
 /**
@@ -20,23 +18,21 @@ import java.util.Map;
 @Component
 public class KeycloakRoleConverter implements Converter<Jwt, Collection<GrantedAuthority>> {
 
-    @Override
-    public Collection<GrantedAuthority> convert(Jwt jwt) {
-        Collection<GrantedAuthority> grantedAuthorities = new ArrayList<>();
+    private final AuthorityRegistry authorityRegistry;
 
-        // Extract roles from realm_access claim
-        Map<String, Object> realmAccess = jwt.getClaim("realm_access");
-        if (realmAccess != null && realmAccess.containsKey("roles")) {
-            @SuppressWarnings("unchecked")
-            List<String> roles = (List<String>) realmAccess.get("roles");
+    public KeycloakRoleConverter(AuthorityRegistry authorityRegistry) {
+        this.authorityRegistry = authorityRegistry;
+    }
 
-            for (String role : roles) {
-                // Convert Keycloak roles to Spring Security authorities
-                // Prefix with "ROLE_" to match Spring Security conventions
-                grantedAuthorities.add(new SimpleGrantedAuthority("ROLE_" + role));
-            }
+    @Override
+    public Collection<GrantedAuthority> convert(Jwt jwt) {
+        // Extract roles from realm_access claim, checking the shape instead of casting it
+        if (jwt.getClaims().get("realm_access") instanceof Map<?, ?> realmAccess
+                && realmAccess.get("roles") instanceof Collection<?> roles) {
+            // Keycloak roles as shared "ROLE_" authorities, matching Spring Security conventions
+            return authorityRegistry.authoritiesFor(roles);
         }
 
-        return grantedAuthorities;
+        return Collections.emptyList();
     }
-}
\ No newline at end of file
+}
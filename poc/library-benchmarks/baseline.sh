@@ -0,0 +1,59 @@
+#!/bin/bash
+
+# Captures or checks the JMH baseline of the authorization hot path.
+#
+#   ./baseline.sh capture   run the benchmarks with the GC profiler and store baseline/baseline.json
+#   ./baseline.sh check     run them again and fail when a score or the allocation per operation
+#                           regressed by more than THRESHOLD percent (default 10)
+
+cd "$(dirname "$0")"
+
+BENCHMARKS="RolePermissionServiceBenchmark|JwtAuthenticationBenchmark|ClaimExtractionBenchmark"
+THRESHOLD=${THRESHOLD:-10}
+
+case "$1" in
+    capture)
+        mkdir -p baseline
+        ./run.sh "$BENCHMARKS" -prof gc -rf json -rff baseline/baseline.json
+        ;;
+    check)
+        if [ ! -f baseline/baseline.json ]; then
+            echo "No baseline/baseline.json, run ./baseline.sh capture first"
+            exit 1
+        fi
+        ./run.sh "$BENCHMARKS" -prof gc -rf json -rff target/current.json || exit 1
+        python3 - baseline/baseline.json target/current.json "$THRESHOLD" <<'PY'
+import json, sys
+
+def load(path):
+    results = {}
+    for run in json.load(open(path)):
+        params = ",".join(f"{k}={v}" for k, v in sorted(run.get("params", {}).items()))
+        key = ".".join(run["benchmark"].split(".")[-2:]) + (f"({params})" if params else "")
+        alloc = run.get("secondaryMetrics", {}).get("gc.alloc.rate.norm", {}).get("score")
+        results[key] = (run["primaryMetric"]["score"], run["primaryMetric"]["scoreUnit"], alloc)
+    return results
+
+baseline, current, threshold = load(sys.argv[1]), load(sys.argv[2]), float(sys.argv[3])
+regressions = 0
+for key, (score, unit, alloc) in sorted(current.items()):
+    if key not in baseline:
+        print(f"NEW   {key}: {score:.3f} {unit}")
+        continue
+    base_score, _, base_alloc = baseline[key]
+    # All benchmarks report average time, higher is worse
+    change = (score - base_score) / base_score * 100 if base_score else 0.0
+    # Allocation-free benchmarks report fractions of a byte, which are noise and not a percentage
+    alloc_change = (alloc - base_alloc) / base_alloc * 100 if alloc is not None and base_alloc and alloc - base_alloc >= 1 else 0.0
+    regressed = change > threshold or alloc_change > threshold
+    regressions += regressed
+    print(f"{'SLOW ' if regressed else 'OK   '} {key}: {base_score:.3f} -> {score:.3f} {unit} ({change:+.1f}%), "
+          f"alloc {base_alloc if base_alloc is not None else '-'} -> {alloc if alloc is not None else '-'} B/op ({alloc_change:+.1f}%)")
+sys.exit(1 if regressions else 0)
+PY
+        ;;
+    *)
+        echo "Usage: $0 capture|check"
+        exit 1
+        ;;
+esac
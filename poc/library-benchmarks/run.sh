@@ -0,0 +1,14 @@
+#!/bin/bash
+
+# Library Benchmarks Runner
+echo "Building library-management and the JMH benchmarks..."
+
+# Ensure we're in the correct directory
+cd "$(dirname "$0")"
+
+# The benchmarks compile against the plain library-management jar
+(cd ../library-management && mvn -q clean install -DskipTests)
+mvn -q clean package
+
+# Pass any JMH options through, e.g. ./run.sh PermissionMatrixBenchmark -prof gc
+java -jar target/benchmarks.jar "$@"
@@ -0,0 +1,64 @@
+package com.example.librarybenchmarks;
+
+import com.example.librarymanagement.service.AuditEvent;
+import com.example.librarymanagement.service.AuditSegmentWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Audit events appended per second by the segment writer, per fsync policy and batch size.
+ * Scores are events per second because every invocation writes one batch.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuditSegmentWriterBenchmark {
+
+    static final int BATCH_SIZE = 256;
+
+    @Param({"NEVER", "INTERVAL", "BATCH"})
+    public AuditSegmentWriter.FsyncPolicy fsync;
+
+    private Path directory;
+    private AuditSegmentWriter writer;
+    private List<AuditEvent> batch;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("audit-benchmark");
+        writer = new AuditSegmentWriter(directory, 64L * 1024 * 1024, fsync, 1000, 0, 0L);
+
+        batch = new ArrayList<>(BATCH_SIZE);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(new AuditEvent(now + i, AuditEvent.DECISION,
+                    "ts=" + (now + i) + " user=user-" + (i % 50) + " resource=BOOK:" + i
+                            + " action=READ outcome=ALLOW decidedBy=role-permission latencyUs=3"));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        writer.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void appendBatch() throws IOException {
+        writer.append(batch);
+    }
+}
@@ -0,0 +1,330 @@
+package com.example.librarybenchmarks;
+
+import com.example.librarymanagement.config.AuthorityRegistry;
+import com.example.librarymanagement.config.JwksKeyCache;
+import com.example.librarymanagement.config.JwtAuthorityCache;
+import com.example.librarymanagement.config.KeycloakJwtAuthenticationConverter;
+import com.example.librarymanagement.config.SecurityConfig;
+import com.example.librarymanagement.config.TokenClaimExtractor;
+import com.example.librarymanagement.config.VerifiedTokenCache;
+import com.example.librarymanagement.config.VerifyingJwtDecoder;
+import com.example.librarymanagement.entity.CustomPermission;
+import com.example.librarymanagement.entity.CustomPermissionRule;
+import com.example.librarymanagement.entity.CustomRole;
+import com.example.librarymanagement.entity.UserCustomRole;
+import com.example.librarymanagement.repository.CustomPermissionRepository;
+import com.example.librarymanagement.repository.CustomPermissionRuleRepository;
+import com.example.librarymanagement.repository.CustomRoleRepository;
+import com.example.librarymanagement.repository.UserCustomRoleRepository;
+import com.example.librarymanagement.service.AuditTrail;
+import com.example.librarymanagement.service.DecisionLogger;
+import com.example.librarymanagement.service.DenyRuleIndex;
+import com.example.librarymanagement.service.PermissionRegistry;
+import com.example.librarymanagement.service.PolicyEngine;
+import com.example.librarymanagement.service.RolePermissionService;
+import com.example.librarymanagement.service.UserAuthorizationCache;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSObject;
+import com.nimbusds.jose.Payload;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Wires the authorization services of library-management without a Spring context.
+ *
+ * The repositories are replaced by in-memory proxies that answer the handful of queries the hot
+ * path makes, and the decision log and audit trail are switched off so the benchmarks measure the
+ * decision itself. Roles, rules and tokens are sized by the benchmark parameters.
+ */
+final class AuthorizationFixture {
+
+    static final String USER_ID = "db3b9afd-68ec-41c3-9065-128230ace759";
+
+    // 2048-bit like Keycloak's default realm key
+    static final RSAKey SIGNING_KEY = generateSigningKey();
+
+    private static final String[] PERMISSION_NAMES = {
+            "READ_BOOK", "CREATE_BOOK", "UPDATE_BOOK", "DELETE_BOOK", "RENT_BOOK", "RETURN_BOOK",
+            "CREATE_USER", "UPDATE_USER", "DELETE_USER", "READ_ORDER", "CREATE_ORDER"
+    };
+
+    final List<CustomPermission> permissions = new ArrayList<>();
+    final List<CustomRole> roles = new ArrayList<>();
+    final List<CustomPermissionRule> denyRules = new ArrayList<>();
+    final List<UserCustomRole> userRoles = new ArrayList<>();
+
+    final RolePermissionService rolePermissionService = new RolePermissionService();
+    final PermissionRegistry permissionRegistry = new PermissionRegistry();
+    final KeycloakJwtAuthenticationConverter converter = new KeycloakJwtAuthenticationConverter();
+    final JwtAuthorityCache authorityCache = new JwtAuthorityCache();
+
+    /**
+     * @param roleCount     roles in the policy, each granting a rotating slice of the permissions
+     * @param rolesPerUser  roles assigned to {@link #USER_ID}
+     * @param ruleCount     DENY rules, spread over books and over the four condition types
+     */
+    AuthorizationFixture(int roleCount, int rolesPerUser, int ruleCount) {
+        CustomPermission.ResourceType[] resourceTypes = CustomPermission.ResourceType.values();
+        CustomPermission.PermissionAction[] actions = CustomPermission.PermissionAction.values();
+
+        for (int p = 0; p < PERMISSION_NAMES.length; p++) {
+            CustomPermission permission = new CustomPermission();
+            permission.setId((long) p + 1);
+            permission.setName(PERMISSION_NAMES[p]);
+            permission.setResourceType(resourceTypes[p % resourceTypes.length]);
+            permission.setAction(actions[p % actions.length]);
+            permissions.add(permission);
+        }
+
+        for (int r = 0; r < roleCount; r++) {
+            CustomRole role = new CustomRole();
+            role.setId((long) r + 1);
+            role.setName("Role" + r);
+            Set<CustomPermission> granted = new HashSet<>();
+            for (int p = 0; p < 4; p++) {
+                granted.add(permissions.get((r + p) % permissions.size()));
+            }
+            role.setPermissions(granted);
+            role.setParentRoleIds(new HashSet<>());
+            roles.add(role);
+        }
+
+        for (int r = 0; r < Math.min(rolesPerUser, roleCount); r++) {
+            UserCustomRole assignment = new UserCustomRole();
+            assignment.setId((long) r + 1);
+            assignment.setUserId(USER_ID);
+            assignment.setUsername("student");
+            assignment.setCustomRole(roles.get(r));
+            userRoles.add(assignment);
+        }
+
+        for (int i = 0; i < ruleCount; i++) {
+            CustomPermissionRule rule = new CustomPermissionRule();
+            rule.setId((long) i + 1);
+            rule.setResourceType(CustomPermission.ResourceType.BOOK);
+            // Benchmarks check resource 1, which carries one rule of every condition type
+            rule.setResourceId((long) (i / 4) + 1);
+            rule.setEffect(CustomPermissionRule.RuleEffect.DENY);
+            switch (i % 4) {
+                case 0:
+                    rule.setConditionType(CustomPermissionRule.ConditionType.USER_ID);
+                    rule.setConditionValue("user-" + i);
+                    break;
+                case 1:
+                    rule.setConditionType(CustomPermissionRule.ConditionType.USERNAME);
+                    rule.setConditionValue("blocked-" + i);
+                    break;
+                case 2:
+                    rule.setConditionType(CustomPermissionRule.ConditionType.USER_ROLE);
+                    rule.setConditionValue("Suspended");
+                    break;
+                default:
+                    rule.setConditionType(CustomPermissionRule.ConditionType.CUSTOM_CONDITION);
+                    rule.setConditionValue("role in (Suspended, Banned) and claim.email_verified = false");
+                    break;
+            }
+            denyRules.add(rule);
+        }
+
+        PolicyEngine policyEngine = new PolicyEngine();
+        inject(policyEngine, "customRoleRepository", repository(CustomRoleRepository.class));
+        policyEngine.rebuild();
+
+        inject(permissionRegistry, "customPermissionRepository", repository(CustomPermissionRepository.class));
+        permissionRegistry.rebuild();
+
+        DenyRuleIndex denyRuleIndex = new DenyRuleIndex();
+        inject(denyRuleIndex, "customPermissionRuleRepository", repository(CustomPermissionRuleRepository.class));
+        denyRuleIndex.rebuild();
+
+        UserAuthorizationCache userAuthorizationCache = new UserAuthorizationCache();
+        inject(userAuthorizationCache, "maxSize", 10_000);
+        userAuthorizationCache.start();
+
+        AuditTrail auditTrail = new AuditTrail();
+        inject(auditTrail, "enabled", false);
+        DecisionLogger decisionLogger = new DecisionLogger();
+        inject(decisionLogger, "enabled", false);
+        inject(decisionLogger, "auditTrail", auditTrail);
+        decisionLogger.start();
+
+        inject(rolePermissionService, "userCustomRoleRepository", repository(UserCustomRoleRepository.class));
+        inject(rolePermissionService, "policyEngine", policyEngine);
+        inject(rolePermissionService, "permissionRegistry", permissionRegistry);
+        inject(rolePermissionService, "denyRuleIndex", denyRuleIndex);
+        inject(rolePermissionService, "userAuthorizationCache", userAuthorizationCache);
+        inject(rolePermissionService, "decisionLogger", decisionLogger);
+
+        inject(authorityCache, "maxSize", 10_000);
+        AuthorityRegistry authorityRegistry = new AuthorityRegistry();
+        inject(authorityRegistry, "maxRoles", 10_000);
+        inject(authorityRegistry, "maxRoleSets", 10_000);
+        inject(converter, "rolePermissionService", rolePermissionService);
+        inject(converter, "authorityCache", authorityCache);
+        inject(converter, "tokenClaimExtractor", claimExtractor());
+        inject(converter, "authorityRegistry", authorityRegistry);
+    }
+
+    /**
+     * A Keycloak-shaped access token signed by {@link #SIGNING_KEY}, with the given number of realm
+     * roles and extra string claims.
+     */
+    static String token(int realmRoles, int extraClaims) {
+        return sign(claims(realmRoles, extraClaims, 0, 0));
+    }
+
+    /**
+     * The JSON claims of an access token. Keycloak lists the roles of every client the user has
+     * roles in under resource_access, which is what makes real tokens several KB.
+     */
+    static String claims(int realmRoles, int extraClaims, int clients, int rolesPerClient) {
+        StringBuilder payload = new StringBuilder()
+                .append("{\"exp\":4102444800,\"iat\":1700000000,\"jti\":\"5b0b9c3e-1f0e-4c8e-9d7a-0f6f5d1c2b3a\"")
+                .append(",\"iss\":\"http://localhost:8080/realms/library\",\"aud\":\"account\"")
+                .append(",\"sub\":\"").append(USER_ID).append('"')
+                .append(",\"typ\":\"Bearer\",\"azp\":\"library-app\",\"preferred_username\":\"student\"")
+                .append(",\"email_verified\":true,\"realm_access\":{\"roles\":[");
+        for (int i = 0; i < realmRoles; i++) {
+            payload.append(i > 0 ? "," : "").append("\"realm-role-").append(i).append('"');
+        }
+        payload.append("]}");
+        if (clients > 0) {
+            payload.append(",\"resource_access\":{");
+            for (int c = 0; c < clients; c++) {
+                // The first client is library-app, the one the application reads roles from
+                payload.append(c > 0 ? "," : "").append('"').append(c == 0 ? "library-app" : "client-" + c)
+                        .append("\":{\"roles\":[");
+                for (int r = 0; r < rolesPerClient; r++) {
+                    payload.append(r > 0 ? "," : "").append("\"client-role-").append(r).append('"');
+                }
+                payload.append("]}");
+            }
+            payload.append('}');
+        }
+        for (int i = 0; i < extraClaims; i++) {
+            payload.append(",\"claim_").append(i).append("\":\"value-").append(i).append('"');
+        }
+        return payload.append('}').toString();
+    }
+
+    private static String sign(String payload) {
+        try {
+            JWSObject jws = new JWSObject(
+                    new JWSHeader.Builder(JWSAlgorithm.RS256).type(JOSEObjectType.JWT).keyID(SIGNING_KEY.getKeyID()).build(),
+                    new Payload(payload));
+            jws.sign(new RSASSASigner(SIGNING_KEY));
+            return jws.serialize();
+        } catch (JOSEException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The decoder bean from SecurityConfig, verified-token cache included.
+     */
+    static JwtDecoder jwtDecoder() {
+        VerifiedTokenCache verifiedTokenCache = new VerifiedTokenCache();
+        inject(verifiedTokenCache, "maxSize", 100_000);
+        return new SecurityConfig().jwtDecoder(jwksKeyCache(), claimExtractor(), verifiedTokenCache, "");
+    }
+
+    /**
+     * Signature verification and claim validation alone, what every token cost before the cache.
+     */
+    static JwtDecoder verifyingJwtDecoder() {
+        return new VerifyingJwtDecoder(jwksKeyCache(), claimExtractor(), JwtValidators.createDefault());
+    }
+
+    static TokenClaimExtractor claimExtractor() {
+        return new TokenClaimExtractor(List.of("library-app"));
+    }
+
+    // Knows SIGNING_KEY from a JWKS file, its endpoint is unreachable so no refresh ever succeeds
+    private static JwksKeyCache jwksKeyCache() {
+        try {
+            Path jwksFile = Files.createTempFile("bench-jwks", ".json");
+            jwksFile.toFile().deleteOnExit();
+            Files.writeString(jwksFile, new JWKSet(SIGNING_KEY.toPublicJWK()).toString());
+
+            JwksKeyCache keyCache = new JwksKeyCache();
+            inject(keyCache, "jwksUri", "http://127.0.0.1:9/certs");
+            inject(keyCache, "jwksFile", jwksFile.toString());
+            inject(keyCache, "refreshIntervalMillis", Long.MAX_VALUE);
+            inject(keyCache, "minRefreshIntervalMillis", Long.MAX_VALUE);
+            inject(keyCache, "fetchTimeoutMillis", 1000L);
+            keyCache.start();
+            return keyCache;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private List<Object[]> roleTuples() {
+        List<Object[]> tuples = new ArrayList<>();
+        for (UserCustomRole assignment : userRoles) {
+            CustomRole role = assignment.getCustomRole();
+            tuples.add(new Object[]{role.getId(), role.getName(), assignment.getExpiresAt()});
+        }
+        return tuples;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T repository(Class<T> type) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "findAll":
+                    return type == CustomPermissionRepository.class ? permissions : roles;
+                case "findByEffect":
+                    return denyRules;
+                case "findActiveRoleTuplesByUserId":
+                    return USER_ID.equals(args[0]) ? roleTuples() : Collections.emptyList();
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return type.getSimpleName() + " (in memory)";
+                default:
+                    throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+            }
+        });
+    }
+
+    private static RSAKey generateSigningKey() {
+        try {
+            return new RSAKeyGenerator(2048).keyID("bench").keyUse(KeyUse.SIGNATURE).generate();
+        } catch (JOSEException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void inject(Object target, String fieldName, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot set " + target.getClass().getSimpleName() + "." + fieldName, e);
+        }
+    }
+}
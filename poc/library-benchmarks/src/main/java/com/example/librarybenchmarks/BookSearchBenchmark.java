@@ -0,0 +1,129 @@
+package com.example.librarybenchmarks;
+
+import com.example.librarymanagement.repository.BookRepository;
+import com.example.librarymanagement.service.BookSearchIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BookSearchIndex.search against a scan with the semantics of the old LIKE query (any of title,
+ * author or ISBN contains the term), over a generated catalog. The scan runs in memory, so it is a
+ * lower bound of what the database query costs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class BookSearchBenchmark {
+
+    @Param({"10000", "500000"})
+    public int books;
+
+    // A title word, part of a word, two words and a full ISBN
+    @Param({"WORD", "SUBSTRING", "TWO_WORDS", "ISBN"})
+    public String queryType;
+
+    private List<Object[]> rows;
+    private BookSearchIndex index;
+    private String query;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        String[] vocabulary = new String[20000];
+        for (int i = 0; i < vocabulary.length; i++) {
+            StringBuilder word = new StringBuilder();
+            int length = 4 + random.nextInt(6);
+            for (int c = 0; c < length; c++) {
+                word.append((char) ('a' + random.nextInt(26)));
+            }
+            vocabulary[i] = word.toString();
+        }
+
+        rows = new ArrayList<>(books);
+        for (int i = 0; i < books; i++) {
+            String title = capitalize(vocabulary[random.nextInt(vocabulary.length)]) + " "
+                    + vocabulary[random.nextInt(2000)] + " " + vocabulary[random.nextInt(vocabulary.length)];
+            String author = capitalize(vocabulary[random.nextInt(vocabulary.length)]) + " "
+                    + capitalize(vocabulary[random.nextInt(vocabulary.length)]);
+            String description = vocabulary[random.nextInt(vocabulary.length)] + " "
+                    + vocabulary[random.nextInt(vocabulary.length)] + " " + vocabulary[random.nextInt(vocabulary.length)];
+            rows.add(new Object[]{(long) i + 1, title, author, "978-" + (1000000000L + i), description});
+        }
+
+        String title = (String) rows.get(books / 2)[1];
+        String[] titleWords = title.split(" ");
+        query = switch (queryType) {
+            case "WORD" -> titleWords[1];
+            case "SUBSTRING" -> titleWords[1].substring(1, 4);
+            case "TWO_WORDS" -> titleWords[1] + " " + titleWords[2];
+            default -> (String) rows.get(books / 2)[3];
+        };
+
+        index = new BookSearchIndex();
+        inject(index, "bookRepository", bookRepository());
+        inject(index, "enabled", true);
+        inject(index, "maxResults", 200);
+        index.start();
+        index.rebuild();
+    }
+
+    @TearDown
+    public void tearDown() {
+        index.stop();
+    }
+
+    @Benchmark
+    public List<Long> index() {
+        return index.search(query);
+    }
+
+    @Benchmark
+    public List<Long> likeScan() {
+        String term = query.toLowerCase(Locale.ROOT);
+        List<Long> ids = new ArrayList<>();
+        for (Object[] row : rows) {
+            if (contains(row[1], term) || contains(row[2], term) || contains(row[3], term)) {
+                ids.add((Long) row[0]);
+            }
+        }
+        return ids;
+    }
+
+    private static boolean contains(Object field, String term) {
+        return ((String) field).toLowerCase(Locale.ROOT).contains(term);
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+
+    private BookRepository bookRepository() {
+        return (BookRepository) Proxy.newProxyInstance(BookRepository.class.getClassLoader(),
+                new Class<?>[]{BookRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("findSearchFields")) {
+                        return rows;
+                    }
+                    throw new UnsupportedOperationException("BookRepository." + method.getName());
+                });
+    }
+
+    private static void inject(Object target, String fieldName, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot set " + target.getClass().getSimpleName() + "." + fieldName, e);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.librarybenchmarks;
+
+import com.example.librarymanagement.config.JwtAuthorityCache;
+import com.example.librarymanagement.config.KeycloakJwtAuthenticationConverter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-request authentication path: the JwtDecoder bean from SecurityConfig, which serves a
+ * repeat token from the verified-token cache, full RS256 verification of a token seen for the first
+ * time, and KeycloakJwtAuthenticationConverter adding realm and database roles. With -prof gc,
+ * convert() shows the steady-state allocation per request of a repeat token.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtAuthenticationBenchmark {
+
+    @Param({"2", "32"})
+    public int realmRoles;
+
+    @Param({"0", "50"})
+    public int extraClaims;
+
+    @Param({"1", "8"})
+    public int rolesPerUser;
+
+    private String token;
+    private Jwt jwt;
+    private JwtDecoder decoder;
+    private JwtDecoder verifyingDecoder;
+    private KeycloakJwtAuthenticationConverter converter;
+    private JwtAuthorityCache authorityCache;
+
+    @Setup
+    public void setup() {
+        AuthorizationFixture fixture = new AuthorizationFixture(20, rolesPerUser, 0);
+        converter = fixture.converter;
+        authorityCache = fixture.authorityCache;
+        decoder = AuthorizationFixture.jwtDecoder();
+        verifyingDecoder = AuthorizationFixture.verifyingJwtDecoder();
+        token = AuthorizationFixture.token(realmRoles, extraClaims);
+        jwt = decoder.decode(token);
+    }
+
+    @Benchmark
+    public Jwt decode() {
+        return decoder.decode(token);
+    }
+
+    @Benchmark
+    public Jwt verify() {
+        return verifyingDecoder.decode(token);
+    }
+
+    @Benchmark
+    public AbstractAuthenticationToken convert() {
+        return converter.convert(jwt);
+    }
+
+    // A token seen for the first time: authorities come from the registry, not the authority cache
+    @Benchmark
+    public AbstractAuthenticationToken convertNewToken() {
+        authorityCache.invalidateAll();
+        return converter.convert(jwt);
+    }
+
+    @Benchmark
+    public AbstractAuthenticationToken decodeAndConvert() {
+        return converter.convert(decoder.decode(token));
+    }
+}
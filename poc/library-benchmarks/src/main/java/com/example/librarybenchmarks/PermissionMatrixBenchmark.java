@@ -0,0 +1,97 @@
+package com.example.librarybenchmarks;
+
+import com.example.librarymanagement.entity.CustomPermission;
+import com.example.librarymanagement.entity.CustomRole;
+import com.example.librarymanagement.entity.UserCustomRole;
+import com.example.librarymanagement.service.PermissionMatrix;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the compiled role bitmask check with the stream-over-permissions path
+ * RolePermissionService.hasPermission used before the PermissionMatrix existed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PermissionMatrixBenchmark {
+
+    @Param({"1", "4", "16"})
+    public int rolesPerUser;
+
+    @Param({"4", "16"})
+    public int permissionsPerRole;
+
+    private List<UserCustomRole> userRoles;
+    private PermissionMatrix matrix;
+
+    private CustomPermission.ResourceType resourceType;
+    private CustomPermission.PermissionAction action;
+
+    @Setup
+    public void setup() {
+        CustomPermission.ResourceType[] resourceTypes = CustomPermission.ResourceType.values();
+        CustomPermission.PermissionAction[] actions = CustomPermission.PermissionAction.values();
+
+        List<CustomRole> roles = new ArrayList<>();
+        userRoles = new ArrayList<>();
+        long permissionId = 1;
+        for (int r = 0; r < rolesPerUser; r++) {
+            CustomRole role = new CustomRole();
+            role.setId((long) r + 1);
+            role.setName("Role" + r);
+            Set<CustomPermission> permissions = new HashSet<>();
+            for (int p = 0; p < permissionsPerRole; p++) {
+                CustomPermission permission = new CustomPermission();
+                permission.setId(permissionId++);
+                permission.setName("PERMISSION_" + r + "_" + p);
+                permission.setResourceType(resourceTypes[(r + p) % resourceTypes.length]);
+                // Never grant ALL so both paths have to scan for the answer
+                permission.setAction(actions[p % (actions.length - 1)]);
+                permissions.add(permission);
+            }
+            role.setPermissions(permissions);
+            roles.add(role);
+
+            UserCustomRole assignment = new UserCustomRole();
+            assignment.setUserId("user-1");
+            assignment.setCustomRole(role);
+            userRoles.add(assignment);
+        }
+
+        matrix = PermissionMatrix.compile(roles);
+
+        // A combination that no role grants is the worst case for the stream path
+        resourceType = CustomPermission.ResourceType.ORDER;
+        action = CustomPermission.PermissionAction.ALL;
+    }
+
+    @Benchmark
+    public boolean streamPath() {
+        Set<CustomPermission> userPermissions = userRoles.stream()
+                .flatMap(role -> role.getCustomRole().getPermissions().stream())
+                .collect(Collectors.toSet());
+
+        return userPermissions.stream()
+                .anyMatch(perm -> perm.getResourceType() == resourceType &&
+                                 (perm.getAction() == action || perm.getAction() == CustomPermission.PermissionAction.ALL));
+    }
+
+    @Benchmark
+    public boolean compiledMatrix() {
+        long permissionMask = 0L;
+        for (UserCustomRole userRole : userRoles) {
+            permissionMask |= matrix.roleMask(userRole.getCustomRole().getId());
+        }
+        return PermissionMatrix.allows(permissionMask, resourceType, action);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.librarybenchmarks;
+
+import com.example.librarymanagement.entity.CustomPermission;
+import com.example.librarymanagement.service.EvaluationContext;
+import com.example.librarymanagement.service.PermissionRegistry;
+import com.example.librarymanagement.service.RolePermissionService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RolePermissionService.hasPermission through its public overloads, with the user's roles served
+ * from the authorization cache as they are after the first request, plus the PermissionRegistry
+ * name lookup the string overload goes through.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RolePermissionServiceBenchmark {
+
+    private static final String[] PERMISSIONS = {
+            "READ_BOOK", "update_book", "RETURN_BOOK", "CREATE_ORDER", "MANAGE_LIBRARY"
+    };
+
+    @Param({"10", "100"})
+    public int roleCount;
+
+    @Param({"1", "8"})
+    public int rolesPerUser;
+
+    @Param({"0", "1000"})
+    public int ruleCount;
+
+    private RolePermissionService rolePermissionService;
+    private PermissionRegistry permissionRegistry;
+    private EvaluationContext context;
+    private int readBookId;
+    private int permissionIndex;
+
+    @Setup
+    public void setup() {
+        AuthorizationFixture fixture = new AuthorizationFixture(roleCount, rolesPerUser, ruleCount);
+        rolePermissionService = fixture.rolePermissionService;
+        permissionRegistry = fixture.permissionRegistry;
+        context = rolePermissionService.createEvaluationContext(AuthorizationFixture.USER_ID, null, null);
+        readBookId = permissionRegistry.idOf("READ_BOOK");
+    }
+
+    @Benchmark
+    public boolean enumOverload() {
+        return rolePermissionService.hasPermission(AuthorizationFixture.USER_ID, CustomPermission.ResourceType.BOOK,
+                1L, CustomPermission.PermissionAction.READ);
+    }
+
+    @Benchmark
+    public boolean stringOverload() {
+        return rolePermissionService.hasPermission(AuthorizationFixture.USER_ID, "READ_BOOK", "BOOK", 1L, null);
+    }
+
+    @Benchmark
+    public boolean stringOverloadUnknownResourceType() {
+        // Used to be a caught IllegalArgumentException from ResourceType.valueOf
+        return rolePermissionService.hasPermission(context, "READ_BOOK", "MAGAZINE", 1L);
+    }
+
+    @Benchmark
+    public boolean permissionIdOverload() {
+        return rolePermissionService.hasPermission(context, readBookId, 1L);
+    }
+
+    @Benchmark
+    public CustomPermission.PermissionAction checkAction() {
+        // Rotates through known, lower-case and unknown names so the lookup is not folded away
+        String permission = PERMISSIONS[permissionIndex++ % PERMISSIONS.length];
+        return permissionRegistry.checkAction(permission);
+    }
+}
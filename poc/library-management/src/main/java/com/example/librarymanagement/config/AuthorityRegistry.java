@@ -0,0 +1,73 @@
+package com.example.librarymanagement.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Canonical "ROLE_" authorities and authority lists.
+ *
+ * Role names are few and stable, so every role maps to one shared {@link SimpleGrantedAuthority}
+ * and every combination of roles to one shared unmodifiable list of them. Converting a token
+ * whose combination was seen before allocates nothing beyond the lookup key. Both maps are
+ * bounded; past the bound, authorities are built per call as before.
+ */
+@Component
+public class AuthorityRegistry {
+
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    @Value("${library.authority-registry.max-roles:10000}")
+    private int maxRoles;
+
+    @Value("${library.authority-registry.max-role-sets:10000}")
+    private int maxRoleSets;
+
+    private final ConcurrentHashMap<String, GrantedAuthority> authorities = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<List<String>, List<GrantedAuthority>> authoritySets = new ConcurrentHashMap<>();
+
+    public GrantedAuthority authorityFor(String roleName) {
+        GrantedAuthority authority = authorities.get(roleName);
+        if (authority != null) {
+            return authority;
+        }
+        authority = new SimpleGrantedAuthority(ROLE_PREFIX + roleName);
+        if (authorities.size() >= maxRoles) {
+            return authority;
+        }
+        GrantedAuthority existing = authorities.putIfAbsent(roleName, authority);
+        return existing != null ? existing : authority;
+    }
+
+    /**
+     * The shared authority list for these role names, in their order. The names list is used as
+     * the lookup key and copied only when a new combination is registered.
+     */
+    public List<GrantedAuthority> authoritiesFor(List<String> roleNames) {
+        List<GrantedAuthority> cached = authoritySets.get(roleNames);
+        if (cached != null) {
+            return cached;
+        }
+        List<GrantedAuthority> built = new ArrayList<>(roleNames.size());
+        for (String roleName : roleNames) {
+            built.add(authorityFor(roleName));
+        }
+        built = Collections.unmodifiableList(built);
+        if (authoritySets.size() >= maxRoleSets) {
+            return built;
+        }
+        List<GrantedAuthority> existing = authoritySets.putIfAbsent(List.copyOf(roleNames), built);
+        return existing != null ? existing : built;
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of("roles", authorities.size(), "roleSets", authoritySets.size());
+    }
+}
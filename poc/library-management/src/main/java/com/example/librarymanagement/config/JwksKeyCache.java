@@ -0,0 +1,224 @@
+package com.example.librarymanagement.config;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Signature verifiers for the realm's signing keys, keyed by kid.
+ *
+ * Request threads only read an immutable snapshot of prebuilt verifiers. A background thread
+ * refreshes the snapshot from the JWKS endpoint when it is older than the refresh interval, and
+ * sooner when a token names an unknown kid, which is how key rotation shows up. Until a refresh
+ * succeeds the previous keys stay in use. Every fetched key set is also written to the JWKS file,
+ * which seeds the snapshot at startup, so a restart while Keycloak is unreachable still verifies
+ * tokens signed with known keys.
+ */
+@Component
+public class JwksKeyCache {
+
+    private static final Logger log = LoggerFactory.getLogger(JwksKeyCache.class);
+
+    @Value("${library.jwt.jwks-uri:${keycloak.auth-server-url}/realms/${keycloak.realm}/protocol/openid-connect/certs}")
+    private String jwksUri;
+
+    @Value("${library.jwt.jwks-file:data/jwks.json}")
+    private String jwksFile;
+
+    @Value("${library.jwt.refresh-interval-ms:300000}")
+    private long refreshIntervalMillis;
+
+    @Value("${library.jwt.min-refresh-interval-ms:10000}")
+    private long minRefreshIntervalMillis;
+
+    @Value("${library.jwt.fetch-timeout-ms:5000}")
+    private long fetchTimeoutMillis;
+
+    private volatile Keys keys = new Keys(Collections.emptyMap(), 0L, "none");
+
+    private HttpClient httpClient;
+    private ScheduledExecutorService refresher;
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+    private volatile long lastAttemptMillis;
+
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong refreshFailures = new AtomicLong();
+    private final AtomicLong unknownKeyRefreshes = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(fetchTimeoutMillis)).build();
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "jwks-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        loadFile();
+        refresher.scheduleWithFixedDelay(this::refreshIfStale, 0L, Math.max(1000L, refreshIntervalMillis / 10), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * The verifier for a kid, or null when the key is unknown. Never blocks: an unknown kid or a
+     * stale key set only schedules a background refresh.
+     */
+    public JWSVerifier verifierFor(String kid) {
+        Keys current = keys;
+        JWSVerifier verifier = kid != null ? current.verifiers.get(kid)
+                : current.verifiers.size() == 1 ? current.verifiers.values().iterator().next() : null;
+        if (verifier == null) {
+            // Possibly a rotated key, checked again at most every min-refresh-interval
+            if (System.currentTimeMillis() - lastAttemptMillis >= minRefreshIntervalMillis) {
+                unknownKeyRefreshes.incrementAndGet();
+                scheduleRefresh();
+            }
+        } else if (System.currentTimeMillis() - current.loadedAtMillis >= refreshIntervalMillis) {
+            scheduleRefresh();
+        }
+        return verifier;
+    }
+
+    public Map<String, Object> getStats() {
+        Keys current = keys;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("keys", current.verifiers.size());
+        stats.put("source", current.source);
+        stats.put("loadedAtMillis", current.loadedAtMillis);
+        stats.put("refreshes", refreshes.get());
+        stats.put("refreshFailures", refreshFailures.get());
+        stats.put("unknownKeyRefreshes", unknownKeyRefreshes.get());
+        return stats;
+    }
+
+    private void scheduleRefresh() {
+        if (refreshScheduled.compareAndSet(false, true)) {
+            refresher.execute(this::refresh);
+        }
+    }
+
+    private void refreshIfStale() {
+        if (System.currentTimeMillis() - keys.loadedAtMillis >= refreshIntervalMillis) {
+            refresh();
+        }
+    }
+
+    private void refresh() {
+        refreshScheduled.set(false);
+        lastAttemptMillis = System.currentTimeMillis();
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(jwksUri))
+                    .timeout(Duration.ofMillis(fetchTimeoutMillis))
+                    .GET()
+                    .build();
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IOException("HTTP " + response.statusCode());
+            }
+            Map<String, JWSVerifier> verifiers = buildVerifiers(JWKSet.parse(response.body()));
+            if (verifiers.isEmpty()) {
+                throw new IOException("no RSA signing keys");
+            }
+            keys = new Keys(verifiers, System.currentTimeMillis(), "remote");
+            refreshes.incrementAndGet();
+            writeFile(response.body());
+        } catch (IOException | ParseException | RuntimeException e) {
+            refreshFailures.incrementAndGet();
+            log.warn("JWKS refresh from {} failed, keeping {} {} keys: {}", jwksUri, keys.verifiers.size(), keys.source, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void loadFile() {
+        Path path = Paths.get(jwksFile);
+        if (!Files.isRegularFile(path)) {
+            return;
+        }
+        try {
+            Map<String, JWSVerifier> verifiers = buildVerifiers(JWKSet.load(path.toFile()));
+            // Dated by the file so a key set from an earlier run is refreshed right away
+            keys = new Keys(verifiers, Files.getLastModifiedTime(path).toMillis(), "file");
+            log.info("Loaded {} signing keys from {}", verifiers.size(), path);
+        } catch (IOException | ParseException e) {
+            log.warn("Cannot read JWKS file {}: {}", path, e.getMessage());
+        }
+    }
+
+    private void writeFile(String jwks) {
+        Path path = Paths.get(jwksFile);
+        try {
+            Path directory = path.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temporary = Files.createTempFile(directory, "jwks", ".tmp");
+            Files.writeString(temporary, jwks, StandardCharsets.UTF_8);
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Cannot write JWKS file {}: {}", path, e.getMessage());
+        }
+    }
+
+    private static Map<String, JWSVerifier> buildVerifiers(JWKSet jwkSet) {
+        Map<String, JWSVerifier> verifiers = new HashMap<>();
+        for (JWK jwk : jwkSet.getKeys()) {
+            if (!(jwk instanceof RSAKey rsaKey) || jwk.getKeyID() == null
+                    || (jwk.getKeyUse() != null && !KeyUse.SIGNATURE.equals(jwk.getKeyUse()))) {
+                continue;
+            }
+            try {
+                // Parsing the modulus and exponent once here keeps it off the request path
+                verifiers.put(jwk.getKeyID(), new RSASSAVerifier(rsaKey));
+            } catch (JOSEException e) {
+                log.warn("Skipping JWKS key {}: {}", jwk.getKeyID(), e.getMessage());
+            }
+        }
+        return Collections.unmodifiableMap(verifiers);
+    }
+
+    private static final class Keys {
+        final Map<String, JWSVerifier> verifiers;
+        final long loadedAtMillis;
+        final String source;
+
+        Keys(Map<String, JWSVerifier> verifiers, long loadedAtMillis, String source) {
+            this.verifiers = verifiers;
+            this.loadedAtMillis = loadedAtMillis;
+            this.source = source;
+        }
+    }
+}
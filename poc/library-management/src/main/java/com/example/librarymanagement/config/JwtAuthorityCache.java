@@ -0,0 +1,216 @@
+package com.example.librarymanagement.config;
+
+import com.example.librarymanagement.service.PolicyChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * The {@link LibraryPrincipal} (authorities, roles and permission mask) converted from a token,
+ * cached per (subject, jti), or per (subject, token digest) for tokens without a jti.
+ *
+ * An entry lives until the token's exp or the earliest expiry of the custom role assignments it
+ * was built from, whichever comes first, since expiring assignments publish no event. It is
+ * dropped earlier when the subject's role assignments change, or on any role or permission change.
+ * Concurrent first requests with the same token share one load: the first caller publishes a
+ * future and runs the loader, the others wait for that future. Tokens without exp are converted
+ * on every request.
+ */
+@Component
+public class JwtAuthorityCache {
+
+    @Value("${library.authority-cache.max-size:10000}")
+    private int maxSize;
+
+    private final ConcurrentHashMap<TokenKey, Entry> entries = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder sharedLoads = new LongAdder();
+    private final LongAdder uncacheable = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public LibraryPrincipal get(Jwt jwt, String userId, BiFunction<Jwt, String, LibraryPrincipal> loader) {
+        TokenKey key = keyOf(jwt, userId);
+        Instant expiresAt = instantClaim(jwt, "exp");
+        long now = System.currentTimeMillis();
+        if (key == null || expiresAt == null || expiresAt.toEpochMilli() <= now) {
+            uncacheable.increment();
+            return loader.apply(jwt, userId);
+        }
+
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAtMillis <= now) {
+            if (entries.remove(key, entry)) {
+                expirations.increment();
+            }
+            entry = null;
+        }
+        if (entry != null) {
+            if (entry.principal.isDone()) {
+                hits.increment();
+            } else {
+                sharedLoads.increment();
+            }
+            return await(entry);
+        }
+
+        if (entries.size() >= maxSize) {
+            purgeExpired();
+            if (entries.size() >= maxSize) {
+                uncacheable.increment();
+                return loader.apply(jwt, userId);
+            }
+        }
+
+        Entry created = new Entry(expiresAt.toEpochMilli());
+        Entry existing = entries.putIfAbsent(key, created);
+        if (existing != null) {
+            // Another request for the same token got there first
+            sharedLoads.increment();
+            return await(existing);
+        }
+
+        misses.increment();
+        try {
+            LibraryPrincipal principal = loader.apply(jwt, userId);
+            // Set before completing, so no caller sees the principal past its first expiring role
+            created.expiresAtMillis = Math.min(created.expiresAtMillis, principal.getCustomRolesExpireAtMillis());
+            created.principal.complete(principal);
+            return principal;
+        } catch (RuntimeException e) {
+            // Failed loads are not cached, waiting requests see the same failure
+            entries.remove(key, created);
+            created.principal.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public void invalidate(String userId) {
+        entries.keySet().removeIf(key -> key.userId.equals(userId));
+        invalidations.increment();
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+        invalidations.increment();
+    }
+
+    // Runs after PolicyEngine has recompiled the matrix and UserAuthorizationCache has dropped the user,
+    // so a reload cannot see stale roles or permission masks
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPolicyChanged(PolicyChangedEvent event) {
+        if (!event.affectsAssignments()) {
+            return;
+        }
+        if (event.getChangeType() == PolicyChangedEvent.ChangeType.ASSIGNMENTS && event.getUserId() != null) {
+            invalidate(event.getUserId());
+        } else {
+            invalidateAll();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${library.authority-cache.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        entries.entrySet().removeIf(entry -> {
+            if (entry.getValue().expiresAtMillis <= now) {
+                expirations.increment();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", entries.size());
+        stats.put("maxSize", maxSize);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("sharedLoads", sharedLoads.sum());
+        stats.put("uncacheable", uncacheable.sum());
+        stats.put("expirations", expirations.sum());
+        stats.put("invalidations", invalidations.sum());
+        return stats;
+    }
+
+    private static TokenKey keyOf(Jwt jwt, String userId) {
+        if (userId == null) {
+            return null;
+        }
+        // Without a jti only the token itself is unique, two tokens may share sub and iat
+        Object tokenId = jwt.getId() != null ? jwt.getId() : TokenDigest.of(jwt.getTokenValue());
+        return new TokenKey(userId, tokenId);
+    }
+
+    // Decoders that skip claim conversion leave exp as epoch seconds
+    private static Instant instantClaim(Jwt jwt, String name) {
+        Object value = jwt.getClaims().get(name);
+        if (value instanceof Instant instant) {
+            return instant;
+        }
+        if (value instanceof Number seconds) {
+            return Instant.ofEpochSecond(seconds.longValue());
+        }
+        return null;
+    }
+
+    private static LibraryPrincipal await(Entry entry) {
+        try {
+            return entry.principal.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static final class TokenKey {
+        final String userId;
+        // The jti string or a TokenDigest
+        final Object tokenId;
+
+        TokenKey(String userId, Object tokenId) {
+            this.userId = userId;
+            this.tokenId = tokenId;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof TokenKey)) {
+                return false;
+            }
+            TokenKey key = (TokenKey) other;
+            return userId.equals(key.userId) && tokenId.equals(key.tokenId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, tokenId);
+        }
+    }
+
+    private static final class Entry {
+        volatile long expiresAtMillis;
+        final CompletableFuture<LibraryPrincipal> principal = new CompletableFuture<>();
+
+        Entry(long expiresAtMillis) {
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.librarymanagement.config;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.MappedJwtClaimSetConverter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A verified Jwt that also carries the typed {@link TokenClaims} extracted while decoding, so the
+ * authentication converter does not dig roles out of the claims map again.
+ *
+ * {@link #getClaims()} answers the {@link TokenClaims#STANDARD_CLAIMS} from the values the
+ * extractor already read; the payload is parsed into the full claims map only the first time
+ * another claim, or the whole map, is asked for, e.g. by a claim-based rule condition.
+ */
+public class KeycloakJwt extends Jwt {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final ObjectMapper CLAIMS_MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, Object>> CLAIMS_TYPE = new TypeReference<>() {
+    };
+    private static final Converter<Map<String, Object>, Map<String, Object>> CLAIM_SET_CONVERTER =
+            MappedJwtClaimSetConverter.withDefaults(Collections.emptyMap());
+
+    private final TokenClaims tokenClaims;
+    // Verified payload, null when the constructor was given the full claims
+    private final byte[] payload;
+    private transient Map<String, Object> claims;
+    private transient volatile Map<String, Object> allClaims;
+
+    private KeycloakJwt(String tokenValue, Instant issuedAt, Instant expiresAt, Map<String, Object> headers,
+                        Map<String, Object> claims, TokenClaims tokenClaims, byte[] payload) {
+        super(tokenValue, issuedAt, expiresAt, headers, claims);
+        this.tokenClaims = tokenClaims;
+        this.payload = payload;
+    }
+
+    /**
+     * A Jwt over a verified payload, from the claims the extractor read; the full claim set is
+     * parsed eagerly only when the standard claims could not be kept as plain values.
+     *
+     * @throws IOException when the payload has to be parsed and is not a JSON object
+     * @throws IllegalArgumentException when iat or exp is not a timestamp, or exp is before iat
+     */
+    public static KeycloakJwt of(String tokenValue, Map<String, Object> headers, TokenClaims tokenClaims,
+                                 byte[] payload) throws IOException {
+        Map<String, Object> standardClaims = tokenClaims.getStandardClaims();
+        boolean lazy = standardClaims != null && !standardClaims.isEmpty();
+        Map<String, Object> claims = lazy ? CLAIM_SET_CONVERTER.convert(standardClaims) : parse(payload);
+        return new KeycloakJwt(tokenValue, instantClaim(claims, "iat"), instantClaim(claims, "exp"), headers,
+                claims, tokenClaims, lazy ? payload : null);
+    }
+
+    public TokenClaims getTokenClaims() {
+        return tokenClaims;
+    }
+
+    @Override
+    public Map<String, Object> getClaims() {
+        if (payload == null) {
+            return super.getClaims();
+        }
+        // A racing second view is harmless, both read the same claims
+        Map<String, Object> view = claims;
+        if (view == null) {
+            view = new Claims();
+            claims = view;
+        }
+        return view;
+    }
+
+    private Map<String, Object> allClaims() {
+        Map<String, Object> parsed = allClaims;
+        if (parsed == null) {
+            synchronized (this) {
+                parsed = allClaims;
+                if (parsed == null) {
+                    try {
+                        parsed = Collections.unmodifiableMap(parse(payload));
+                    } catch (IOException e) {
+                        // The extractor already read the payload, so this is not expected
+                        throw new BadJwtException("Malformed claims: " + e.getMessage(), e);
+                    }
+                    allClaims = parsed;
+                }
+            }
+        }
+        return parsed;
+    }
+
+    private static Map<String, Object> parse(byte[] payload) throws IOException {
+        return CLAIM_SET_CONVERTER.convert(CLAIMS_MAPPER.readValue(payload, CLAIMS_TYPE));
+    }
+
+    private static Instant instantClaim(Map<String, Object> claims, String name) {
+        Object value = claims.get(name);
+        if (value != null && !(value instanceof Instant)) {
+            throw new IllegalArgumentException(name + " is not a timestamp");
+        }
+        return (Instant) value;
+    }
+
+    /**
+     * Read-only claims: standard claims from the extracted values, anything else from the full parse.
+     */
+    private final class Claims extends AbstractMap<String, Object> {
+
+        @Override
+        public Object get(Object name) {
+            if (isStandard(name)) {
+                return KeycloakJwt.super.getClaims().get(name);
+            }
+            return allClaims().get(name);
+        }
+
+        @Override
+        public boolean containsKey(Object name) {
+            if (isStandard(name)) {
+                return KeycloakJwt.super.getClaims().containsKey(name);
+            }
+            return allClaims().containsKey(name);
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return allClaims().entrySet();
+        }
+
+        private boolean isStandard(Object name) {
+            return name instanceof String && TokenClaims.STANDARD_CLAIMS.contains(name);
+        }
+    }
+}
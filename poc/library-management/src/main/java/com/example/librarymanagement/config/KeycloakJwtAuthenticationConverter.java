@@ -1,87 +1,118 @@
 package com.example.librarymanagement.config;
 
 import com.example.librarymanagement.service.RolePermissionService;
+import com.example.librarymanagement.service.UserAuthorization;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.security.authentication.AbstractAuthenticationToken;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.BadJwtException;
 import org.springframework.security.oauth2.jwt.Jwt;
-import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.security.oauth2.server.resource.InvalidBearerTokenException;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.function.BiFunction;
 
 @Component
 public class KeycloakJwtAuthenticationConverter implements Converter<Jwt, AbstractAuthenticationToken> {
 
+    private static final Logger log = LoggerFactory.getLogger(KeycloakJwtAuthenticationConverter.class);
+
     @Autowired
     private RolePermissionService rolePermissionService;
 
+    @Autowired
+    private JwtAuthorityCache authorityCache;
+
+    @Autowired
+    private TokenClaimExtractor tokenClaimExtractor;
+
+    @Autowired
+    private AuthorityRegistry authorityRegistry;
+
+    // Not a capturing lambda, so a cache hit allocates no loader
+    private final BiFunction<Jwt, String, LibraryPrincipal> principalLoader = this::loadPrincipal;
+
     @Override
     public AbstractAuthenticationToken convert(Jwt jwt) {
-        System.out.println("Converting JWT to AuthenticationToken");
-        Collection<GrantedAuthority> authorities = extractAuthorities(jwt);
-        System.out.println("Extracted authorities: " + authorities);
-        return new JwtAuthenticationToken(jwt, authorities);
+        TokenClaims claims = tokenClaims(jwt);
+        String userId = extractUserIdFromToken(claims);
+        LibraryPrincipal principal;
+        try {
+            // Cached per token, concurrent requests with the same token share one role lookup
+            principal = authorityCache.get(jwt, userId, principalLoader);
+        } catch (Exception e) {
+            // Log error but don't fail authentication
+            log.warn("Error loading custom roles: {}", e.getMessage());
+            principal = buildPrincipal(jwt, claims, userId, noCustomRoles(userId));
+        }
+        log.debug("Principal for {}: {}", jwt.getSubject(), principal);
+        return new LibraryAuthenticationToken(jwt, principal);
     }
 
-    private Collection<GrantedAuthority> extractAuthorities(Jwt jwt) {
-        List<GrantedAuthority> authorities = new ArrayList<>();
-
-        // Extract Keycloak realm roles
-        Map<String, Object> realmAccess = jwt.getClaim("realm_access");
-        if (realmAccess != null) {
-            @SuppressWarnings("unchecked")
-            List<String> roles = (List<String>) realmAccess.get("roles");
-            if (roles != null) {
-                authorities.addAll(roles.stream()
-                        .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
-                        .collect(Collectors.toList()));
-            }
+    private TokenClaims tokenClaims(Jwt jwt) {
+        // Extracted once by VerifyingJwtDecoder, other decoders leave it to us
+        if (jwt instanceof KeycloakJwt keycloakJwt) {
+            return keycloakJwt.getTokenClaims();
         }
-
-        // Extract custom roles from database
         try {
-            String userId = extractUserIdFromToken(jwt);
-            if (userId != null) {
-                List<String> customRoles = rolePermissionService.getUserRoleNames(userId);
-                authorities.addAll(customRoles.stream()
-                        .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
-                        .collect(Collectors.toList()));
-            }
-        } catch (Exception e) {
-            // Log error but don't fail authentication
-            System.err.println("Error loading custom roles: " + e.getMessage());
+            return tokenClaimExtractor.extract(jwt.getTokenValue());
+        } catch (IOException e) {
+            throw new BadJwtException("Malformed claims: " + e.getMessage(), e);
         }
+    }
+
+    private LibraryPrincipal loadPrincipal(Jwt jwt, String userId) {
+        // Custom roles from the database, failures propagate so they are not cached
+        UserAuthorization userAuthorization = rolePermissionService.getUserAuthorization(userId);
+        return buildPrincipal(jwt, tokenClaims(jwt), userId, userAuthorization);
+    }
+
+    private LibraryPrincipal buildPrincipal(Jwt jwt, TokenClaims claims, String userId, UserAuthorization userAuthorization) {
+        List<String> tokenRoles = tokenRoleNames(claims);
+        List<String> roleNames = new ArrayList<>(tokenRoles);
+        roleNames.addAll(userAuthorization.getRoleNames());
+
+        // Shared authorities, one list per distinct role combination
+        List<GrantedAuthority> authorities = authorityRegistry.authoritiesFor(roleNames);
+        long permissionMask = rolePermissionService.permissionMask(userAuthorization, tokenRoles);
+        return new LibraryPrincipal(userId, claims.getPreferredUsername(), tokenRoles, userAuthorization,
+                permissionMask, authorities, jwt.getClaims());
+    }
 
-        return authorities;
+    private static UserAuthorization noCustomRoles(String userId) {
+        return new UserAuthorization(userId, Collections.emptySet(), Collections.emptySet(), Collections.emptySet(), Long.MAX_VALUE);
     }
 
-    private String extractUserIdFromToken(Jwt jwt) {
+    private static List<String> tokenRoleNames(TokenClaims claims) {
+        // Keycloak realm roles, then the roles of the clients in library.jwt.role-clients
+        List<String> roleNames = new ArrayList<>(claims.getRealmRoles());
+        for (List<String> clientRoles : claims.getClientRoles().values()) {
+            roleNames.addAll(clientRoles);
+        }
+        return roleNames;
+    }
+
+    private String extractUserIdFromToken(TokenClaims claims) {
         // Extract user ID from JWT token - adjust based on your token structure
-        String subject = jwt.getSubject();
+        String subject = claims.getSubject();
         if (subject != null && !subject.isEmpty()) {
             return subject;
         }
-        
+
         // Try to get from preferred_username claim (Keycloak specific)
-        Object preferredUsername = jwt.getClaims().get("preferred_username");
-        if (preferredUsername instanceof String) {
-            return (String) preferredUsername;
-        }
-        
-        // Try to get from sub claim
-        Object sub = jwt.getClaims().get("sub");
-        if (sub instanceof String) {
-            return (String) sub;
+        if (claims.getPreferredUsername() != null && !claims.getPreferredUsername().isEmpty()) {
+            return claims.getPreferredUsername();
         }
-        
-        // Fallback to a default user ID for testing
-        return "db3b9afd-68ec-41c3-9065-128230ace759";
+
+        // A verified token that names nobody must not act as some existing user; an
+        // authentication exception, so the bearer token filter answers 401
+        throw new InvalidBearerTokenException("Token has neither sub nor preferred_username");
     }
-}
\ No newline at end of file
+}
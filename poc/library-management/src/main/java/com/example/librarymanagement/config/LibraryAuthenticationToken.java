@@ -0,0 +1,39 @@
+package com.example.librarymanagement.config;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.util.Collection;
+
+/**
+ * A JwtAuthenticationToken carrying the {@link LibraryPrincipal} resolved for the token. It hands
+ * out the principal's shared authority list from {@link AuthorityRegistry} as is, instead of the
+ * per-request copy the Spring base class makes. The principal of the authentication stays the Jwt.
+ */
+public class LibraryAuthenticationToken extends JwtAuthenticationToken {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient LibraryPrincipal libraryPrincipal;
+
+    public LibraryAuthenticationToken(Jwt jwt, LibraryPrincipal libraryPrincipal) {
+        // No authorities for the base class, it would copy them
+        super(jwt, null);
+        this.libraryPrincipal = libraryPrincipal;
+    }
+
+    public LibraryPrincipal getLibraryPrincipal() {
+        return libraryPrincipal;
+    }
+
+    @Override
+    public Collection<GrantedAuthority> getAuthorities() {
+        return libraryPrincipal.getAuthorities();
+    }
+
+    @Override
+    public String getName() {
+        return libraryPrincipal.getUserId();
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.librarymanagement.config;
+
+import com.example.librarymanagement.service.UserAuthorization;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The caller of a request: identity, token roles, custom roles and their compiled permission mask.
+ *
+ * Built once per token by {@link KeycloakJwtAuthenticationConverter} and cached with it in
+ * {@link JwtAuthorityCache}, so a request resolves identity and roles at most once. Controllers
+ * receive it as a handler method argument, services can call {@link #current()}.
+ */
+public class LibraryPrincipal {
+
+    private final String userId;
+    private final String username;
+    private final List<String> tokenRoles;
+    private final UserAuthorization userAuthorization;
+    private final long permissionMask;
+    private final List<GrantedAuthority> authorities;
+    private final Map<String, Object> claims;
+
+    public LibraryPrincipal(String userId, String username, List<String> tokenRoles, UserAuthorization userAuthorization,
+                            long permissionMask, List<GrantedAuthority> authorities, Map<String, Object> claims) {
+        this.userId = userId;
+        this.username = username;
+        this.tokenRoles = Collections.unmodifiableList(tokenRoles);
+        this.userAuthorization = userAuthorization;
+        this.permissionMask = permissionMask;
+        this.authorities = authorities;
+        this.claims = claims != null ? claims : Collections.emptyMap();
+    }
+
+    /**
+     * The principal of the current request, null when it was not authenticated with a token.
+     */
+    public static LibraryPrincipal current() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication instanceof LibraryAuthenticationToken token ? token.getLibraryPrincipal() : null;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    // preferred_username, null when the token has none
+    public String getUsername() {
+        return username;
+    }
+
+    // Username for display, the user id when the token carries no username
+    public String getDisplayName() {
+        return username != null ? username : userId;
+    }
+
+    // Keycloak realm roles plus the roles of the clients in library.jwt.role-clients
+    public List<String> getTokenRoles() {
+        return tokenRoles;
+    }
+
+    // Epoch millis at which the earliest custom role assignment expires, Long.MAX_VALUE when none do
+    public long getCustomRolesExpireAtMillis() {
+        return userAuthorization.getExpiresAtMillis();
+    }
+
+    public Set<Long> getCustomRoleIds() {
+        return userAuthorization.getRoleIds();
+    }
+
+    public Set<String> getCustomRoleNames() {
+        return userAuthorization.getRoleNames();
+    }
+
+    public Set<String> getPermissionNames() {
+        return userAuthorization.getPermissionNames();
+    }
+
+    // PermissionMatrix bits of the custom roles, or of the token roles when the user has none
+    public long getPermissionMask() {
+        return permissionMask;
+    }
+
+    public List<GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    public boolean hasAuthority(String authority) {
+        for (GrantedAuthority granted : authorities) {
+            if (granted.getAuthority().equals(authority)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Map<String, Object> getClaims() {
+        return claims;
+    }
+
+    @Override
+    public String toString() {
+        return "LibraryPrincipal{userId=" + userId + ", username=" + username + ", authorities=" + authorities + "}";
+    }
+}
@@ -1,31 +1,33 @@
 package com.example.librarymanagement.config;
 
 import com.example.librarymanagement.config.KeycloakJwtAuthenticationConverter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
-import org.springframework.security.oauth2.jwt.JwtException;
-import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidators;
 import org.springframework.security.web.SecurityFilterChain;
 
 import jakarta.annotation.PostConstruct;
 
-import java.util.Map;
-import com.fasterxml.jackson.databind.ObjectMapper;
-
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity
 public class SecurityConfig {
 
+    private static final Logger log = LoggerFactory.getLogger(SecurityConfig.class);
+
     @PostConstruct
     public void init() {
-        System.out.println("SecurityConfig initialized");
+        log.debug("SecurityConfig initialized");
     }
 
     @Bean
@@ -34,48 +36,17 @@ public class SecurityConfig {
     }
 
     @Bean
-    public JwtDecoder jwtDecoder() {
-        System.out.println("Creating JWT Decoder bean");
-        try {
-            System.out.println("Connecting to Keycloak JWK endpoint...");
-            // For testing, create a decoder that doesn't validate signatures
-            return new JwtDecoder() {
-                @Override
-                public Jwt decode(String token) throws JwtException {
-                    try {
-                        String[] parts = token.split("\\.");
-                        if (parts.length != 3) {
-                            throw new JwtException("Invalid JWT");
-                        }
-                        
-                        // Decode payload
-                        String payload = parts[1];
-                        payload += "=".repeat((4 - payload.length() % 4) % 4);
-                        String decodedPayload = new String(java.util.Base64.getUrlDecoder().decode(payload));
-                        
-                        // Create JWT object
-                        ObjectMapper mapper = new ObjectMapper();
-                        Map<String, Object> claims = mapper.readValue(decodedPayload, Map.class);
-                        
-                        // For testing: inject custom roles into the JWT claims
-                        // In production, these would come from Keycloak
-                        Map<String, Object> realmAccess = new java.util.HashMap<>();
-                        realmAccess.put("roles", java.util.Arrays.asList("Admin", "User"));
-                        claims.put("realm_access", realmAccess);
-                        
-                        return new Jwt(token, null, null, Map.of("alg", "RS256"), claims);
-                    } catch (Exception e) {
-                        throw new JwtException("Failed to decode JWT", e);
-                    }
-                }
-            };
-        } catch (Exception e) {
-            System.err.println("Failed to create JWT Decoder: " + e.getMessage());
-            e.printStackTrace();
-            // Fallback for development - create a dummy decoder
-            // In production, this should be properly configured
-            throw new RuntimeException("Failed to connect to Keycloak. Please ensure Keycloak is running and properly configured.", e);
-        }
+    public JwtDecoder jwtDecoder(JwksKeyCache jwksKeyCache, TokenClaimExtractor tokenClaimExtractor,
+                                 VerifiedTokenCache verifiedTokenCache,
+                                 @Value("${library.jwt.issuer:}") String issuer) {
+        log.debug("Creating JWT decoder");
+        // Signatures are checked against the cached realm keys, exp/nbf always, iss when configured
+        OAuth2TokenValidator<Jwt> validator = issuer.isEmpty()
+                ? JwtValidators.createDefault()
+                : JwtValidators.createDefaultWithIssuer(issuer);
+        JwtDecoder verifier = new VerifyingJwtDecoder(jwksKeyCache, tokenClaimExtractor, validator);
+        // Repeat tokens are served from the cache until their exp
+        return token -> verifiedTokenCache.decode(token, verifier);
     }
 
     @Bean
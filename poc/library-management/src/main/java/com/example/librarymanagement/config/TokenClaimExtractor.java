@@ -0,0 +1,161 @@
+package com.example.librarymanagement.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads {@link TokenClaims} from a JWT payload with Jackson's streaming parser.
+ *
+ * Only sub, preferred_username, exp, realm_access.roles and resource_access.&lt;client&gt;.roles of
+ * the configured clients are kept, plus the raw {@link TokenClaims#STANDARD_CLAIMS}; every other
+ * claim, including the often large resource_access entries of other clients, is skipped without
+ * being materialized.
+ */
+@Component
+public class TokenClaimExtractor {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final Set<String> roleClients;
+
+    public TokenClaimExtractor(@Value("${library.jwt.role-clients:}") List<String> roleClients) {
+        Set<String> clients = new HashSet<>();
+        for (String client : roleClients) {
+            if (!client.isBlank()) {
+                clients.add(client.trim());
+            }
+        }
+        this.roleClients = Collections.unmodifiableSet(clients);
+    }
+
+    // The payload segment of a compact JWS, the signature is not checked here
+    public TokenClaims extract(String token) throws IOException {
+        int payloadStart = token.indexOf('.') + 1;
+        int payloadEnd = token.indexOf('.', payloadStart);
+        if (payloadStart == 0 || payloadEnd < 0) {
+            throw new IOException("Not a compact JWS");
+        }
+        return extract(Base64.getUrlDecoder().decode(token.substring(payloadStart, payloadEnd)));
+    }
+
+    public TokenClaims extract(byte[] payload) throws IOException {
+        try (JsonParser parser = JSON.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Claims are not a JSON object");
+            }
+            String subject = null;
+            String preferredUsername = null;
+            long expiresAtSeconds = 0L;
+            List<String> realmRoles = Collections.emptyList();
+            Map<String, List<String>> clientRoles = Collections.emptyMap();
+            Map<String, Object> standardClaims = new HashMap<>();
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (standardClaims != null && TokenClaims.STANDARD_CLAIMS.contains(name)) {
+                    if (value == JsonToken.VALUE_STRING) {
+                        standardClaims.put(name, parser.getText());
+                    } else if (value.isNumeric()) {
+                        standardClaims.put(name, parser.getNumberValue());
+                    } else if (value != JsonToken.VALUE_NULL) {
+                        // Left to the full parse, which sees the claim as it really is
+                        standardClaims = null;
+                    }
+                }
+                switch (name) {
+                    case "sub":
+                        subject = readText(parser, value);
+                        break;
+                    case "preferred_username":
+                        preferredUsername = readText(parser, value);
+                        break;
+                    case "exp":
+                        if (value.isNumeric()) {
+                            expiresAtSeconds = parser.getLongValue();
+                        }
+                        break;
+                    case "realm_access":
+                        realmRoles = readRoles(parser, value);
+                        break;
+                    case "resource_access":
+                        clientRoles = readClientRoles(parser, value);
+                        break;
+                    default:
+                        parser.skipChildren();
+                        break;
+                }
+            }
+            return new TokenClaims(subject, preferredUsername, expiresAtSeconds, realmRoles, clientRoles,
+                    standardClaims != null ? Collections.unmodifiableMap(standardClaims) : null);
+        }
+    }
+
+    private Map<String, List<String>> readClientRoles(JsonParser parser, JsonToken value) throws IOException {
+        if (value != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return Collections.emptyMap();
+        }
+        Map<String, List<String>> clientRoles = new HashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String client = parser.getCurrentName();
+            JsonToken access = parser.nextToken();
+            if (roleClients.contains(client)) {
+                clientRoles.put(client, readRoles(parser, access));
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return clientRoles.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(clientRoles);
+    }
+
+    // {"roles": ["a", "b"], ...}
+    private static List<String> readRoles(JsonParser parser, JsonToken value) throws IOException {
+        if (value != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return Collections.emptyList();
+        }
+        List<String> roles = Collections.emptyList();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken field = parser.nextToken();
+            if ("roles".equals(name) && field == JsonToken.START_ARRAY) {
+                roles = new ArrayList<>();
+                JsonToken element;
+                while ((element = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    if (element == JsonToken.VALUE_STRING) {
+                        roles.add(parser.getText());
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                roles = Collections.unmodifiableList(roles);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return roles;
+    }
+
+    private static String readText(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_STRING) {
+            return parser.getText();
+        }
+        parser.skipChildren();
+        return null;
+    }
+}
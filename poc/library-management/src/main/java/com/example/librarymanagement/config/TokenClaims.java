@@ -0,0 +1,65 @@
+package com.example.librarymanagement.config;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The claims authentication needs, read from the token payload by {@link TokenClaimExtractor}.
+ * Absent claims are null, an absent exp is 0, absent roles are empty lists.
+ *
+ * The same pass keeps the raw values of the {@link #STANDARD_CLAIMS}, which is all that token
+ * validation and the caches read, so {@link KeycloakJwt} only parses the full claim set when
+ * something asks for another claim.
+ */
+public final class TokenClaims implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final Set<String> STANDARD_CLAIMS = Set.of("iss", "sub", "exp", "iat", "nbf", "jti", "preferred_username");
+
+    private final String subject;
+    private final String preferredUsername;
+    private final long expiresAtSeconds;
+    private final List<String> realmRoles;
+    private final Map<String, List<String>> clientRoles;
+    private final Map<String, Object> standardClaims;
+
+    TokenClaims(String subject, String preferredUsername, long expiresAtSeconds,
+                List<String> realmRoles, Map<String, List<String>> clientRoles, Map<String, Object> standardClaims) {
+        this.subject = subject;
+        this.preferredUsername = preferredUsername;
+        this.expiresAtSeconds = expiresAtSeconds;
+        this.realmRoles = realmRoles;
+        this.clientRoles = clientRoles;
+        this.standardClaims = standardClaims;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public String getPreferredUsername() {
+        return preferredUsername;
+    }
+
+    public long getExpiresAtSeconds() {
+        return expiresAtSeconds;
+    }
+
+    // realm_access.roles
+    public List<String> getRealmRoles() {
+        return realmRoles;
+    }
+
+    // resource_access.<client>.roles, for the configured clients only
+    public Map<String, List<String>> getClientRoles() {
+        return clientRoles;
+    }
+
+    // Raw JSON values of the standard claims present, null when one of them is not a string or number
+    public Map<String, Object> getStandardClaims() {
+        return standardClaims;
+    }
+}
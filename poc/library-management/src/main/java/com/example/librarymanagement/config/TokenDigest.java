@@ -0,0 +1,56 @@
+package com.example.librarymanagement.config;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * The first 128 bits of a raw token's SHA-256, held in two longs, used as a cache key in place of
+ * the token string.
+ */
+final class TokenDigest {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    final long high;
+    final long low;
+
+    TokenDigest(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    static TokenDigest of(String token) {
+        byte[] hash = SHA_256.get().digest(token.getBytes(StandardCharsets.US_ASCII));
+        return new TokenDigest(toLong(hash, 0), toLong(hash, 8));
+    }
+
+    private static long toLong(byte[] bytes, int offset) {
+        long value = 0L;
+        for (int i = offset; i < offset + 8; i++) {
+            value = (value << 8) | (bytes[i] & 0xFFL);
+        }
+        return value;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof TokenDigest)) {
+            return false;
+        }
+        TokenDigest digest = (TokenDigest) other;
+        return high == digest.high && low == digest.low;
+    }
+
+    @Override
+    public int hashCode() {
+        // The digest is uniformly distributed already
+        return (int) high;
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.librarymanagement.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decoded and verified tokens, keyed by a digest of the raw token, valid until the token's exp.
+ *
+ * A client presents the same access token on every request of its lifetime, so a repeat token
+ * costs one SHA-256 and a map lookup instead of base64, JSON parsing and an RSA verification.
+ * Keys are the first 128 bits of the digest held in two longs rather than the token string, and a
+ * hit is confirmed against the cached token value. Only successfully verified tokens are cached.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    @Value("${library.token-cache.max-size:100000}")
+    private int maxSize;
+
+    private final ConcurrentHashMap<TokenDigest, Entry> entries = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public Jwt decode(String token, JwtDecoder verifier) throws JwtException {
+        TokenDigest digest = TokenDigest.of(token);
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(digest);
+        if (entry != null) {
+            if (entry.expiresAtMillis > now && entry.jwt.getTokenValue().equals(token)) {
+                hits.increment();
+                return entry.jwt;
+            }
+            if (entry.expiresAtMillis <= now && entries.remove(digest, entry)) {
+                expirations.increment();
+            }
+        }
+
+        misses.increment();
+        Jwt jwt = verifier.decode(token);
+        Instant expiresAt = jwt.getExpiresAt();
+        if (expiresAt == null) {
+            return jwt;
+        }
+        if (entries.size() >= maxSize) {
+            purgeExpired();
+            if (entries.size() >= maxSize) {
+                rejected.increment();
+                return jwt;
+            }
+        }
+        entries.put(digest, new Entry(jwt, expiresAt.toEpochMilli()));
+        return jwt;
+    }
+
+    @Scheduled(fixedDelayString = "${library.token-cache.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        entries.entrySet().removeIf(entry -> {
+            if (entry.getValue().expiresAtMillis <= now) {
+                expirations.increment();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", entries.size());
+        stats.put("maxSize", maxSize);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("expirations", expirations.sum());
+        stats.put("rejectedWhenFull", rejected.sum());
+        return stats;
+    }
+
+    private static final class Entry {
+        final Jwt jwt;
+        final long expiresAtMillis;
+
+        Entry(Jwt jwt, long expiresAtMillis) {
+            this.jwt = jwt;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.librarymanagement.config;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSObject;
+import com.nimbusds.jose.JWSVerifier;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+
+import java.io.IOException;
+import java.text.ParseException;
+
+/**
+ * Decodes RS256/RS384/RS512 tokens and verifies their signature with the verifiers prebuilt by
+ * {@link JwksKeyCache}, then applies the timestamp and issuer validators. No network or key
+ * parsing happens on the request thread, and the payload is only parsed once the signature holds.
+ *
+ * The payload is read once, by the streaming {@link TokenClaimExtractor}. The result is a
+ * {@link KeycloakJwt} carrying the typed {@link TokenClaims} used for authentication, whose full
+ * claims map is only built if a claim-based rule condition asks for it.
+ */
+public class VerifyingJwtDecoder implements JwtDecoder {
+
+    private final JwksKeyCache keyCache;
+    private final TokenClaimExtractor claimExtractor;
+    private final OAuth2TokenValidator<Jwt> validator;
+
+    public VerifyingJwtDecoder(JwksKeyCache keyCache, TokenClaimExtractor claimExtractor,
+                               OAuth2TokenValidator<Jwt> validator) {
+        this.keyCache = keyCache;
+        this.claimExtractor = claimExtractor;
+        this.validator = validator;
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        JWSObject jws;
+        try {
+            // Parses the header only, the payload stays base64 until the signature is checked
+            jws = JWSObject.parse(token);
+        } catch (ParseException e) {
+            throw new BadJwtException("Malformed token: " + e.getMessage(), e);
+        }
+
+        JWSAlgorithm algorithm = jws.getHeader().getAlgorithm();
+        if (!JWSAlgorithm.Family.RSA.contains(algorithm)) {
+            throw new BadJwtException("Unsupported signing algorithm " + algorithm);
+        }
+        JWSVerifier verifier = keyCache.verifierFor(jws.getHeader().getKeyID());
+        if (verifier == null) {
+            throw new BadJwtException("Unknown signing key " + jws.getHeader().getKeyID());
+        }
+        try {
+            if (!jws.verify(verifier)) {
+                throw new BadJwtException("Invalid signature");
+            }
+        } catch (JOSEException e) {
+            throw new BadJwtException("Cannot verify signature: " + e.getMessage(), e);
+        }
+
+        byte[] payload = jws.getPayload().toBytes();
+        Jwt jwt;
+        try {
+            jwt = KeycloakJwt.of(token, jws.getHeader().toJSONObject(), claimExtractor.extract(payload), payload);
+        } catch (IOException e) {
+            throw new BadJwtException("Malformed claims: " + e.getMessage(), e);
+        } catch (IllegalArgumentException e) {
+            // Claims of the wrong type, an empty claim set, or exp before iat
+            throw new BadJwtException("Invalid claims: " + e.getMessage(), e);
+        }
+        OAuth2TokenValidatorResult result = validator.validate(jwt);
+        if (result.hasErrors()) {
+            throw new JwtValidationException(result.getErrors().iterator().next().getDescription(), result.getErrors());
+        }
+        return jwt;
+    }
+}
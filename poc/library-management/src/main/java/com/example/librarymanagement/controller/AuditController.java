@@ -0,0 +1,37 @@
+package com.example.librarymanagement.controller;
+
+import com.example.librarymanagement.service.AuditEvent;
+import com.example.librarymanagement.service.AuditTrail;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/audit")
+public class AuditController {
+
+    private static final int MAX_LIMIT = 1000;
+
+    @Autowired
+    private AuditTrail auditTrail;
+
+    // Time range in epoch milliseconds, defaults to the last hour
+    @GetMapping
+    @PreAuthorize("hasRole('admin')")
+    public ResponseEntity<List<AuditEvent>> getAuditEvents(@RequestParam(required = false) Long from,
+                                                           @RequestParam(required = false) Long to,
+                                                           @RequestParam(defaultValue = "100") int limit) {
+        long toMillis = to != null ? to : System.currentTimeMillis();
+        long fromMillis = from != null ? from : toMillis - 3_600_000L;
+        if (fromMillis > toMillis || limit < 1 || limit > MAX_LIMIT) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(auditTrail.read(fromMillis, toMillis, limit));
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.librarymanagement.controller;
+
+import com.example.librarymanagement.config.AuthorityRegistry;
+import com.example.librarymanagement.config.JwksKeyCache;
+import com.example.librarymanagement.config.JwtAuthorityCache;
+import com.example.librarymanagement.config.VerifiedTokenCache;
+import com.example.librarymanagement.service.AuditTrail;
+import com.example.librarymanagement.service.BookSearchIndex;
+import com.example.librarymanagement.service.DecisionLogger;
+import com.example.librarymanagement.service.ExpiredAssignmentSweeper;
+import com.example.librarymanagement.service.PermissionRegistry;
+import com.example.librarymanagement.service.PolicySyncService;
+import com.example.librarymanagement.service.UserAuthorizationCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/metrics")
+public class AuthorizationMetricsController {
+
+    @Autowired
+    private UserAuthorizationCache userAuthorizationCache;
+
+    @Autowired
+    private AuthorityRegistry authorityRegistry;
+
+    @Autowired
+    private JwtAuthorityCache jwtAuthorityCache;
+
+    @Autowired
+    private PermissionRegistry permissionRegistry;
+
+    @Autowired
+    private JwksKeyCache jwksKeyCache;
+
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Autowired
+    private PolicySyncService policySyncService;
+
+    @Autowired
+    private DecisionLogger decisionLogger;
+
+    @Autowired
+    private AuditTrail auditTrail;
+
+    @Autowired
+    private ExpiredAssignmentSweeper expiredAssignmentSweeper;
+
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    @GetMapping("/authorization")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<Map<String, Object>> getAuthorizationMetrics() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("userAuthorizationCache", userAuthorizationCache.getStats());
+        response.put("authorityCache", jwtAuthorityCache.getStats());
+        response.put("authorityRegistry", authorityRegistry.getStats());
+        response.put("permissionRegistry", permissionRegistry.getStats());
+        response.put("jwks", jwksKeyCache.getStats());
+        response.put("tokenCache", verifiedTokenCache.getStats());
+        response.put("policySync", policySyncService.getStats());
+        response.put("decisionLog", decisionLogger.getStats());
+        response.put("audit", auditTrail.getStats());
+        response.put("assignmentSweeper", expiredAssignmentSweeper.getStats());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/search")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<Map<String, Object>> getSearchMetrics() {
+        return ResponseEntity.ok(bookSearchIndex.getStats());
+    }
+}
@@ -1,8 +1,14 @@
 package com.example.librarymanagement.controller;
 
+import com.example.librarymanagement.config.LibraryPrincipal;
 import com.example.librarymanagement.entity.Book;
 import com.example.librarymanagement.service.BookService;
+import com.example.librarymanagement.service.EvaluationContext;
+import com.example.librarymanagement.service.RolePermissionService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -16,10 +22,24 @@ public class BookController {
     @Autowired
     private BookService bookService;
 
+    @Autowired
+    private RolePermissionService rolePermissionService;
+
     @GetMapping
-    public ResponseEntity<List<Book>> getAllBooks() {
-        // Temporarily simplified - just require authentication, no permission check
-        List<Book> books = bookService.findAllBooks();
+    public ResponseEntity<List<Book>> getAllBooks(LibraryPrincipal principal) {
+        // Only the books the caller may READ, deny rules are applied inside the query
+        List<Book> books = bookService.findReadableBooks(evaluationContext(principal), Pageable.unpaged()).getContent();
+        return ResponseEntity.ok(books);
+    }
+
+    @GetMapping(params = "page")
+    public ResponseEntity<Page<Book>> getBooksPage(@RequestParam int page,
+                                                   @RequestParam(defaultValue = "20") int size,
+                                                   LibraryPrincipal principal) {
+        if (page < 0 || size < 1 || size > 100) {
+            return ResponseEntity.badRequest().build();
+        }
+        Page<Book> books = bookService.findReadableBooks(evaluationContext(principal), PageRequest.of(page, size));
         return ResponseEntity.ok(books);
     }
 
@@ -82,4 +102,8 @@ public class BookController {
         bookService.deleteBook(id);
         return ResponseEntity.noContent().build();
     }
-}
\ No newline at end of file
+
+    private EvaluationContext evaluationContext(LibraryPrincipal principal) {
+        return rolePermissionService.createEvaluationContext(principal, null);
+    }
+}
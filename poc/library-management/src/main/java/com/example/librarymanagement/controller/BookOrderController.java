@@ -1,13 +1,12 @@
 package com.example.librarymanagement.controller;
 
+import com.example.librarymanagement.config.LibraryPrincipal;
 import com.example.librarymanagement.entity.BookOrder;
 import com.example.librarymanagement.service.BookOrderService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
@@ -29,9 +28,8 @@ public class BookOrderController {
 
     @GetMapping("/my")
     @PreAuthorize("hasRole('owner')")
-    public ResponseEntity<List<BookOrder>> getMyOrders() {
-        String userId = getCurrentUserId();
-        List<BookOrder> orders = bookOrderService.findOrdersByRequester(userId);
+    public ResponseEntity<List<BookOrder>> getMyOrders(LibraryPrincipal principal) {
+        List<BookOrder> orders = bookOrderService.findOrdersByRequester(principal.getUserId());
         return ResponseEntity.ok(orders);
     }
 
@@ -44,8 +42,8 @@ public class BookOrderController {
 
     @PostMapping
     @PreAuthorize("hasRole('owner')")
-    public ResponseEntity<BookOrder> createOrder(@Valid @RequestBody BookOrder order) {
-        order.setRequestedBy(getCurrentUserId());
+    public ResponseEntity<BookOrder> createOrder(@Valid @RequestBody BookOrder order, LibraryPrincipal principal) {
+        order.setRequestedBy(principal.getUserId());
         BookOrder savedOrder = bookOrderService.createOrder(order);
         return ResponseEntity.ok(savedOrder);
     }
@@ -76,15 +74,13 @@ public class BookOrderController {
 
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('owner') or hasRole('admin')")
-    public ResponseEntity<Void> deleteOrder(@PathVariable Long id) {
+    public ResponseEntity<Void> deleteOrder(@PathVariable Long id, LibraryPrincipal principal) {
         // Check ownership for owner role
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        boolean isAdmin = auth.getAuthorities().stream()
-                .anyMatch(a -> a.getAuthority().equals("ROLE_admin"));
+        boolean isAdmin = principal.hasAuthority("ROLE_admin");
 
         if (!isAdmin) {
             BookOrder order = bookOrderService.findOrderById(id).orElse(null);
-            if (order == null || !order.getRequestedBy().equals(getCurrentUserId())) {
+            if (order == null || !order.getRequestedBy().equals(principal.getUserId())) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
             }
         }
@@ -95,9 +91,4 @@ public class BookOrderController {
         bookOrderService.deleteOrder(id);
         return ResponseEntity.noContent().build();
     }
-
-    private String getCurrentUserId() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        return authentication.getName();
-    }
 }
\ No newline at end of file
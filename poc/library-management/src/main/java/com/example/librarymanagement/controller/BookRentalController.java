@@ -1,13 +1,12 @@
 package com.example.librarymanagement.controller;
 
+import com.example.librarymanagement.config.LibraryPrincipal;
 import com.example.librarymanagement.entity.BookRental;
 import com.example.librarymanagement.service.BookRentalService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -28,29 +27,25 @@ public class BookRentalController {
 
     @GetMapping("/my")
     @PreAuthorize("hasRole('student') or hasRole('teacher') or hasRole('librarian') or hasRole('admin')")
-    public ResponseEntity<List<BookRental>> getMyRentals() {
-        String userId = getCurrentUserId();
-        List<BookRental> rentals = bookRentalService.findRentalsByUser(userId);
+    public ResponseEntity<List<BookRental>> getMyRentals(LibraryPrincipal principal) {
+        List<BookRental> rentals = bookRentalService.findRentalsByUser(principal.getUserId());
         return ResponseEntity.ok(rentals);
     }
 
     @GetMapping("/active")
     @PreAuthorize("hasRole('student') or hasRole('teacher') or hasRole('librarian') or hasRole('admin')")
-    public ResponseEntity<List<BookRental>> getMyActiveRentals() {
-        String userId = getCurrentUserId();
-        List<BookRental> rentals = bookRentalService.findActiveRentalsByUser(userId);
+    public ResponseEntity<List<BookRental>> getMyActiveRentals(LibraryPrincipal principal) {
+        List<BookRental> rentals = bookRentalService.findActiveRentalsByUser(principal.getUserId());
         return ResponseEntity.ok(rentals);
     }
 
     @PostMapping("/rent/{bookId}")
     @PreAuthorize("hasRole('student') or hasRole('teacher')")
     public ResponseEntity<BookRental> rentBook(@PathVariable Long bookId,
-                                              @RequestParam(defaultValue = "14") int days) {
-        String userId = getCurrentUserId();
-        String username = getCurrentUsername();
-
+                                              @RequestParam(defaultValue = "14") int days,
+                                              LibraryPrincipal principal) {
         try {
-            BookRental rental = bookRentalService.rentBook(bookId, userId, username, days);
+            BookRental rental = bookRentalService.rentBook(bookId, principal.getUserId(), principal.getDisplayName(), days);
             return ResponseEntity.ok(rental);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().build();
@@ -59,17 +54,15 @@ public class BookRentalController {
 
     @PostMapping("/return/{rentalId}")
     @PreAuthorize("hasRole('student') or hasRole('teacher') or hasRole('librarian') or hasRole('admin')")
-    public ResponseEntity<BookRental> returnBook(@PathVariable Long rentalId) {
+    public ResponseEntity<BookRental> returnBook(@PathVariable Long rentalId, LibraryPrincipal principal) {
         try {
             // Check if user owns this rental or is admin/librarian
-            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-            boolean isAdminOrLibrarian = auth.getAuthorities().stream()
-                    .anyMatch(a -> a.getAuthority().equals("ROLE_admin") || a.getAuthority().equals("ROLE_librarian"));
+            boolean isAdminOrLibrarian = principal.hasAuthority("ROLE_admin") || principal.hasAuthority("ROLE_librarian");
 
             if (!isAdminOrLibrarian) {
                 // Check if the rental belongs to current user
                 BookRental rental = bookRentalService.findRentalById(rentalId).orElse(null);
-                if (rental == null || !rental.getUserId().equals(getCurrentUserId())) {
+                if (rental == null || !rental.getUserId().equals(principal.getUserId())) {
                     return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
                 }
             }
@@ -87,14 +80,4 @@ public class BookRentalController {
         List<BookRental> overdueRentals = bookRentalService.findOverdueRentals();
         return ResponseEntity.ok(overdueRentals);
     }
-
-    private String getCurrentUserId() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        return authentication.getName();
-    }
-
-    private String getCurrentUsername() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        return authentication.getName(); // In Keycloak, this is typically the username
-    }
 }
\ No newline at end of file
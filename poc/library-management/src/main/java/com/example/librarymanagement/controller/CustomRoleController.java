@@ -1,13 +1,23 @@
 package com.example.librarymanagement.controller;
 
+import com.example.librarymanagement.dto.BulkAssignmentItem;
+import com.example.librarymanagement.dto.BulkAssignmentResponse;
 import com.example.librarymanagement.entity.CustomRole;
+import com.example.librarymanagement.service.RoleNotFoundException;
 import com.example.librarymanagement.service.RolePermissionService;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
 import java.util.List;
 
 @RestController
@@ -17,6 +27,9 @@ public class CustomRoleController {
     @Autowired
     private RolePermissionService rolePermissionService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @GetMapping
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<List<CustomRole>> getAllRoles() {
@@ -50,6 +63,17 @@ public class CustomRoleController {
         }
     }
 
+    @DeleteMapping("/{id}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<Void> deleteRole(@PathVariable Long id) {
+        try {
+            rolePermissionService.deleteRole(id);
+            return ResponseEntity.noContent().build();
+        } catch (RoleNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     @PostMapping("/{roleId}/assign/{userId}")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<String> assignRoleToUser(@PathVariable Long roleId, @PathVariable String userId) {
@@ -60,4 +84,42 @@ public class CustomRoleController {
             return ResponseEntity.badRequest().body("Failed to assign role: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    // Body is a JSON array of {userId, username, expiresAt}, read element by element
+    @PostMapping(value = "/{roleId}/assign-bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<BulkAssignmentResponse> assignRoleToUsers(@PathVariable Long roleId, HttpServletRequest request) {
+        try (MappingIterator<BulkAssignmentItem> items = objectMapper.readerFor(BulkAssignmentItem.class)
+                .readValues(request.getInputStream())) {
+            return ResponseEntity.ok(rolePermissionService.bulkAssignRole(roleId, elements(items)));
+        } catch (RoleNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IOException | UncheckedIOException e) {
+            // Malformed JSON or an element that is not an assignment
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // MappingIterator wraps parse errors in plain RuntimeExceptions, keep them recognizable as I/O errors
+    private static <T> Iterator<T> elements(MappingIterator<T> values) {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                try {
+                    return values.hasNextValue();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public T next() {
+                try {
+                    return values.nextValue();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+}
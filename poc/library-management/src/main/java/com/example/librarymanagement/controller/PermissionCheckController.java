@@ -1,13 +1,17 @@
 package com.example.librarymanagement.controller;
 
+import com.example.librarymanagement.config.LibraryPrincipal;
+import com.example.librarymanagement.dto.BatchPermissionCheckRequest;
+import com.example.librarymanagement.dto.BatchPermissionCheckResponse;
+import com.example.librarymanagement.service.EvaluationContext;
 import com.example.librarymanagement.service.RolePermissionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
 
+import jakarta.validation.Valid;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -21,22 +25,19 @@ public class PermissionCheckController {
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<Map<String, Object>> checkPermission(
             @RequestBody Map<String, Object> request,
-            Authentication authentication) {
+            LibraryPrincipal principal) {
 
         String permission = (String) request.get("permission");
         String resourceType = (String) request.get("resourceType");
         Long resourceId = request.get("resourceId") != null ? Long.valueOf(request.get("resourceId").toString()) : null;
-        Map<String, Object> context = (Map<String, Object>) request.get("context");
 
-        // Extract user ID from JWT token
-        Jwt jwt = (Jwt) authentication.getPrincipal();
-        String userId = extractUserIdFromToken(jwt);
-
-        boolean hasPermission = rolePermissionService.hasPermission(userId, permission, resourceType, resourceId, context);
+        // A client supplied "context" is not trusted as condition input, deny rules must not be bypassable
+        EvaluationContext context = rolePermissionService.createEvaluationContext(principal, null);
+        boolean hasPermission = rolePermissionService.hasPermission(context, permission, resourceType, resourceId);
 
         Map<String, Object> response = Map.of(
             "hasPermission", hasPermission,
-            "userId", userId,
+            "userId", principal.getUserId(),
             "permission", permission,
             "resourceType", resourceType,
             "resourceId", resourceId
@@ -45,59 +46,41 @@ public class PermissionCheckController {
         return ResponseEntity.ok(response);
     }
 
-    @GetMapping("/user-permissions")
+    /**
+     * Evaluates up to {@link BatchPermissionCheckRequest#MAX_BATCH_SIZE} checks for the current user
+     * and returns one decision per check, in request order.
+     */
+    @PostMapping("/batch")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<Map<String, Object>> getUserPermissions(Authentication authentication) {
-        Jwt jwt = (Jwt) authentication.getPrincipal();
-        String userId = extractUserIdFromToken(jwt);
+    public ResponseEntity<BatchPermissionCheckResponse> checkPermissions(
+            @Valid @RequestBody BatchPermissionCheckRequest request,
+            LibraryPrincipal principal) {
 
-        var permissions = rolePermissionService.getUserPermissions(userId);
-        var roles = rolePermissionService.getUserRoles(userId);
+        EvaluationContext context = rolePermissionService.createEvaluationContext(principal, null);
+        List<Boolean> decisions = rolePermissionService.hasPermissions(context, request.getChecks());
 
+        return ResponseEntity.ok(new BatchPermissionCheckResponse(principal.getUserId(), decisions));
+    }
+
+    @GetMapping("/user-permissions")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<Map<String, Object>> getUserPermissions(LibraryPrincipal principal) {
         Map<String, Object> response = new java.util.HashMap<>();
-        response.put("userId", userId);
-        response.put("permissions", permissions != null ? permissions : java.util.Collections.emptySet());
-        response.put("roles", roles != null ? roles : java.util.Collections.emptySet());
+        response.put("userId", principal.getUserId());
+        response.put("permissions", principal.getPermissionNames());
+        response.put("roles", principal.getCustomRoleNames());
 
         return ResponseEntity.ok(response);
     }
 
     @GetMapping("/user-roles")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<Map<String, Object>> getUserRoles(Authentication authentication) {
-        Jwt jwt = (Jwt) authentication.getPrincipal();
-        String userId = extractUserIdFromToken(jwt);
-
-        var roles = rolePermissionService.getUserRoles(userId);
-
+    public ResponseEntity<Map<String, Object>> getUserRoles(LibraryPrincipal principal) {
         Map<String, Object> response = Map.of(
-            "userId", userId,
-            "roles", roles
+            "userId", principal.getUserId(),
+            "roles", principal.getCustomRoleNames()
         );
 
         return ResponseEntity.ok(response);
     }
-
-    private String extractUserIdFromToken(Jwt jwt) {
-        // Extract user ID from JWT token - adjust based on your token structure
-        String subject = jwt.getSubject();
-        if (subject != null && !subject.isEmpty()) {
-            return subject;
-        }
-        
-        // Try to get from preferred_username claim (Keycloak specific)
-        Object preferredUsername = jwt.getClaims().get("preferred_username");
-        if (preferredUsername instanceof String) {
-            return (String) preferredUsername;
-        }
-        
-        // Try to get from sub claim
-        Object sub = jwt.getClaims().get("sub");
-        if (sub instanceof String) {
-            return (String) sub;
-        }
-        
-        // Fallback to a default user ID for testing
-        return "admin";
-    }
 }
\ No newline at end of file
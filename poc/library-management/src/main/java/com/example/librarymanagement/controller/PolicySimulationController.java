@@ -0,0 +1,33 @@
+package com.example.librarymanagement.controller;
+
+import com.example.librarymanagement.dto.PolicySimulationRequest;
+import com.example.librarymanagement.dto.PolicySimulationResponse;
+import com.example.librarymanagement.service.PolicySimulator;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/policy")
+public class PolicySimulationController {
+
+    @Autowired
+    private PolicySimulator policySimulator;
+
+    // Evaluates proposed role and rule changes without applying them
+    @PostMapping("/simulate")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> simulate(@Valid @RequestBody PolicySimulationRequest request) {
+        try {
+            PolicySimulationResponse response = policySimulator.simulate(request);
+            return ResponseEntity.ok(response);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body("Failed to simulate policy change: " + e.getMessage());
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.librarymanagement.controller;
 
+import com.example.librarymanagement.config.LibraryPrincipal;
 import com.example.librarymanagement.entity.Book;
 import com.example.librarymanagement.entity.BookOrder;
 import com.example.librarymanagement.entity.BookRental;
@@ -8,8 +9,6 @@ import com.example.librarymanagement.service.BookRentalService;
 import com.example.librarymanagement.service.BookService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
@@ -51,9 +50,8 @@ public class WebController {
 
     @GetMapping("/my-rentals")
     @PreAuthorize("hasRole('student') or hasRole('teacher')")
-    public String myRentals(Model model) {
-        String userId = getCurrentUserId();
-        List<BookRental> rentals = bookRentalService.findRentalsByUser(userId);
+    public String myRentals(Model model, LibraryPrincipal principal) {
+        List<BookRental> rentals = bookRentalService.findRentalsByUser(principal.getUserId());
         model.addAttribute("rentals", rentals);
         model.addAttribute("content", "my-rentals");
         return "layout";
@@ -80,8 +78,8 @@ public class WebController {
 
     @GetMapping("/orders")
     @PreAuthorize("hasRole('owner')")
-    public String myOrders(Model model) {
-        String userId = getCurrentUserId();
+    public String myOrders(Model model, LibraryPrincipal principal) {
+        String userId = principal.getUserId();
         List<BookOrder> orders = bookOrderService.findOrdersByRequester(userId);
         model.addAttribute("orders", orders);
         model.addAttribute("bookOrder", new BookOrder());
@@ -101,9 +99,9 @@ public class WebController {
     @PostMapping("/books/rent/{bookId}")
     @PreAuthorize("hasRole('student') or hasRole('teacher')")
     public String rentBook(@PathVariable Long bookId, @RequestParam(defaultValue = "14") int days,
-                          RedirectAttributes redirectAttributes) {
-        String userId = getCurrentUserId();
-        String username = getCurrentUsername();
+                          RedirectAttributes redirectAttributes, LibraryPrincipal principal) {
+        String userId = principal.getUserId();
+        String username = principal.getDisplayName();
 
         try {
             bookRentalService.rentBook(bookId, userId, username, days);
@@ -142,8 +140,9 @@ public class WebController {
 
     @PostMapping("/orders")
     @PreAuthorize("hasRole('owner')")
-    public String createOrder(@ModelAttribute BookOrder order, RedirectAttributes redirectAttributes) {
-        order.setRequestedBy(getCurrentUserId());
+    public String createOrder(@ModelAttribute BookOrder order, RedirectAttributes redirectAttributes,
+                              LibraryPrincipal principal) {
+        order.setRequestedBy(principal.getUserId());
         try {
             bookOrderService.createOrder(order);
             redirectAttributes.addFlashAttribute("success", "Book order submitted successfully!");
@@ -200,13 +199,4 @@ public class WebController {
         model.addAttribute("content", "roles/rules");
         return "layout";
     }
-
-    private String getCurrentUserId() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        return authentication.getName();
-    }
-
-    private String getCurrentUsername() {
-        return getCurrentUserId(); // In Keycloak, this is typically the username
-    }
 }
\ No newline at end of file
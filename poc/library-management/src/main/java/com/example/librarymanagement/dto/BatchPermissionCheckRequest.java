@@ -0,0 +1,29 @@
+package com.example.librarymanagement.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BatchPermissionCheckRequest {
+
+    /**
+     * Largest number of checks accepted in one request, larger pages should be split by the caller.
+     */
+    public static final int MAX_BATCH_SIZE = 200;
+
+    @NotEmpty(message = "At least one check is required")
+    @Size(max = MAX_BATCH_SIZE, message = "At most " + MAX_BATCH_SIZE + " checks are allowed per request")
+    private List<@Valid PermissionCheckItem> checks = new ArrayList<>();
+
+    // Getters and Setters
+    public List<PermissionCheckItem> getChecks() {
+        return checks;
+    }
+
+    public void setChecks(List<PermissionCheckItem> checks) {
+        this.checks = checks;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.librarymanagement.dto;
+
+import java.util.List;
+
+public class BatchPermissionCheckResponse {
+
+    private String userId;
+
+    // One decision per requested check, in request order
+    private List<Boolean> decisions;
+
+    public BatchPermissionCheckResponse() {
+    }
+
+    public BatchPermissionCheckResponse(String userId, List<Boolean> decisions) {
+        this.userId = userId;
+        this.decisions = decisions;
+    }
+
+    // Getters and Setters
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public List<Boolean> getDecisions() {
+        return decisions;
+    }
+
+    public void setDecisions(List<Boolean> decisions) {
+        this.decisions = decisions;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.librarymanagement.dto;
+
+import java.time.LocalDateTime;
+
+public class BulkAssignmentItem {
+
+    private String userId;
+
+    private String username;
+
+    private LocalDateTime expiresAt;
+
+    public BulkAssignmentItem() {
+    }
+
+    public BulkAssignmentItem(String userId, String username, LocalDateTime expiresAt) {
+        this.userId = userId;
+        this.username = username;
+        this.expiresAt = expiresAt;
+    }
+
+    // Getters and Setters
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.librarymanagement.dto;
+
+public class BulkAssignmentResponse {
+
+    private Long roleId;
+
+    private long inserted;
+
+    // Users whose earlier assignment had expired, it was archived and replaced
+    private long renewed;
+
+    // Entries that were already assigned, repeated in the request or had no userId
+    private long skipped;
+
+    public BulkAssignmentResponse() {
+    }
+
+    public BulkAssignmentResponse(Long roleId, long inserted, long renewed, long skipped) {
+        this.roleId = roleId;
+        this.inserted = inserted;
+        this.renewed = renewed;
+        this.skipped = skipped;
+    }
+
+    // Getters and Setters
+    public Long getRoleId() {
+        return roleId;
+    }
+
+    public void setRoleId(Long roleId) {
+        this.roleId = roleId;
+    }
+
+    public long getInserted() {
+        return inserted;
+    }
+
+    public void setInserted(long inserted) {
+        this.inserted = inserted;
+    }
+
+    public long getRenewed() {
+        return renewed;
+    }
+
+    public void setRenewed(long renewed) {
+        this.renewed = renewed;
+    }
+
+    public long getSkipped() {
+        return skipped;
+    }
+
+    public void setSkipped(long skipped) {
+        this.skipped = skipped;
+    }
+}
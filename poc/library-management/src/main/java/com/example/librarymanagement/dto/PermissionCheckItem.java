@@ -0,0 +1,48 @@
+package com.example.librarymanagement.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+public class PermissionCheckItem {
+
+    @NotBlank(message = "Permission is required")
+    private String permission;
+
+    @NotBlank(message = "Resource type is required")
+    private String resourceType;
+
+    private Long resourceId;
+
+    public PermissionCheckItem() {
+    }
+
+    public PermissionCheckItem(String permission, String resourceType, Long resourceId) {
+        this.permission = permission;
+        this.resourceType = resourceType;
+        this.resourceId = resourceId;
+    }
+
+    // Getters and Setters
+    public String getPermission() {
+        return permission;
+    }
+
+    public void setPermission(String permission) {
+        this.permission = permission;
+    }
+
+    public String getResourceType() {
+        return resourceType;
+    }
+
+    public void setResourceType(String resourceType) {
+        this.resourceType = resourceType;
+    }
+
+    public Long getResourceId() {
+        return resourceId;
+    }
+
+    public void setResourceId(Long resourceId) {
+        this.resourceId = resourceId;
+    }
+}
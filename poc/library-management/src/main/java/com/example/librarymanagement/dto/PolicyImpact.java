@@ -0,0 +1,71 @@
+package com.example.librarymanagement.dto;
+
+import com.example.librarymanagement.entity.CustomPermission;
+
+public class PolicyImpact {
+
+    private CustomPermission.ResourceType resourceType;
+
+    private CustomPermission.PermissionAction action;
+
+    // Null when the change applies to every resource of the type
+    private Long resourceId;
+
+    // Users that get access with the proposed policy
+    private long gained;
+
+    // Users that lose access with the proposed policy
+    private long lost;
+
+    public PolicyImpact() {
+    }
+
+    public PolicyImpact(CustomPermission.ResourceType resourceType, CustomPermission.PermissionAction action, Long resourceId, long gained, long lost) {
+        this.resourceType = resourceType;
+        this.action = action;
+        this.resourceId = resourceId;
+        this.gained = gained;
+        this.lost = lost;
+    }
+
+    // Getters and Setters
+    public CustomPermission.ResourceType getResourceType() {
+        return resourceType;
+    }
+
+    public void setResourceType(CustomPermission.ResourceType resourceType) {
+        this.resourceType = resourceType;
+    }
+
+    public CustomPermission.PermissionAction getAction() {
+        return action;
+    }
+
+    public void setAction(CustomPermission.PermissionAction action) {
+        this.action = action;
+    }
+
+    public Long getResourceId() {
+        return resourceId;
+    }
+
+    public void setResourceId(Long resourceId) {
+        this.resourceId = resourceId;
+    }
+
+    public long getGained() {
+        return gained;
+    }
+
+    public void setGained(long gained) {
+        this.gained = gained;
+    }
+
+    public long getLost() {
+        return lost;
+    }
+
+    public void setLost(long lost) {
+        this.lost = lost;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.librarymanagement.dto;
+
+import jakarta.validation.Valid;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class PolicySimulationRequest {
+
+    private List<@Valid SimulatedRoleChange> roleChanges = new ArrayList<>();
+
+    private List<@Valid SimulatedRuleChange> ruleChanges = new ArrayList<>();
+
+    public PolicySimulationRequest() {
+    }
+
+    // Getters and Setters
+    public List<SimulatedRoleChange> getRoleChanges() {
+        return roleChanges;
+    }
+
+    public void setRoleChanges(List<SimulatedRoleChange> roleChanges) {
+        this.roleChanges = roleChanges;
+    }
+
+    public List<SimulatedRuleChange> getRuleChanges() {
+        return ruleChanges;
+    }
+
+    public void setRuleChanges(List<SimulatedRuleChange> ruleChanges) {
+        this.ruleChanges = ruleChanges;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.librarymanagement.dto;
+
+import java.util.List;
+
+public class PolicySimulationResponse {
+
+    private int usersEvaluated;
+
+    private long durationMillis;
+
+    private List<PolicyImpact> impacts;
+
+    public PolicySimulationResponse() {
+    }
+
+    public PolicySimulationResponse(int usersEvaluated, long durationMillis, List<PolicyImpact> impacts) {
+        this.usersEvaluated = usersEvaluated;
+        this.durationMillis = durationMillis;
+        this.impacts = impacts;
+    }
+
+    // Getters and Setters
+    public int getUsersEvaluated() {
+        return usersEvaluated;
+    }
+
+    public void setUsersEvaluated(int usersEvaluated) {
+        this.usersEvaluated = usersEvaluated;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    public List<PolicyImpact> getImpacts() {
+        return impacts;
+    }
+
+    public void setImpacts(List<PolicyImpact> impacts) {
+        this.impacts = impacts;
+    }
+}
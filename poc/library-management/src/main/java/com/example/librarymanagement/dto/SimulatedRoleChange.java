@@ -0,0 +1,45 @@
+package com.example.librarymanagement.dto;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.util.Set;
+
+public class SimulatedRoleChange {
+
+    @NotNull(message = "Role id is required")
+    private Long roleId;
+
+    // Proposed permission set of the role, null keeps the current one
+    private Set<Long> permissionIds;
+
+    // Proposed parent roles, null keeps the current ones
+    private Set<Long> parentRoleIds;
+
+    public SimulatedRoleChange() {
+    }
+
+    // Getters and Setters
+    public Long getRoleId() {
+        return roleId;
+    }
+
+    public void setRoleId(Long roleId) {
+        this.roleId = roleId;
+    }
+
+    public Set<Long> getPermissionIds() {
+        return permissionIds;
+    }
+
+    public void setPermissionIds(Set<Long> permissionIds) {
+        this.permissionIds = permissionIds;
+    }
+
+    public Set<Long> getParentRoleIds() {
+        return parentRoleIds;
+    }
+
+    public void setParentRoleIds(Set<Long> parentRoleIds) {
+        this.parentRoleIds = parentRoleIds;
+    }
+}
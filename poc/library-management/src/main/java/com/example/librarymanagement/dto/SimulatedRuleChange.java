@@ -0,0 +1,83 @@
+package com.example.librarymanagement.dto;
+
+import com.example.librarymanagement.entity.CustomPermission;
+import com.example.librarymanagement.entity.CustomPermissionRule;
+
+public class SimulatedRuleChange {
+
+    // Existing rule to change or delete, null adds a new rule
+    private Long ruleId;
+
+    private boolean deleted;
+
+    // Fields left null keep the existing rule's value
+    private CustomPermission.ResourceType resourceType;
+
+    private Long resourceId;
+
+    private CustomPermissionRule.RuleEffect effect;
+
+    private CustomPermissionRule.ConditionType conditionType;
+
+    private String conditionValue;
+
+    public SimulatedRuleChange() {
+    }
+
+    // Getters and Setters
+    public Long getRuleId() {
+        return ruleId;
+    }
+
+    public void setRuleId(Long ruleId) {
+        this.ruleId = ruleId;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(boolean deleted) {
+        this.deleted = deleted;
+    }
+
+    public CustomPermission.ResourceType getResourceType() {
+        return resourceType;
+    }
+
+    public void setResourceType(CustomPermission.ResourceType resourceType) {
+        this.resourceType = resourceType;
+    }
+
+    public Long getResourceId() {
+        return resourceId;
+    }
+
+    public void setResourceId(Long resourceId) {
+        this.resourceId = resourceId;
+    }
+
+    public CustomPermissionRule.RuleEffect getEffect() {
+        return effect;
+    }
+
+    public void setEffect(CustomPermissionRule.RuleEffect effect) {
+        this.effect = effect;
+    }
+
+    public CustomPermissionRule.ConditionType getConditionType() {
+        return conditionType;
+    }
+
+    public void setConditionType(CustomPermissionRule.ConditionType conditionType) {
+        this.conditionType = conditionType;
+    }
+
+    public String getConditionValue() {
+        return conditionValue;
+    }
+
+    public void setConditionValue(String conditionValue) {
+        this.conditionValue = conditionValue;
+    }
+}
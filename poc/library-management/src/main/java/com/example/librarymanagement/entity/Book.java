@@ -1,5 +1,6 @@
 package com.example.librarymanagement.entity;
 
+import com.example.librarymanagement.service.BookSearchIndexListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -7,6 +8,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "books")
+@EntityListeners(BookSearchIndexListener.class)
 public class Book {
 
     @Id
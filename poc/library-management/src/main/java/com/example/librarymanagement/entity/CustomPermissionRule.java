@@ -6,7 +6,8 @@ import jakarta.validation.constraints.NotNull;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "custom_permission_rules")
+@Table(name = "custom_permission_rules",
+       indexes = @Index(name = "idx_custom_permission_rules_resource", columnList = "resource_id, resource_type"))
 public class CustomPermissionRule {
 
     @Id
@@ -34,7 +35,7 @@ public class CustomPermissionRule {
     @NotNull(message = "Condition type is required")
     private ConditionType conditionType;
 
-    private String conditionValue; // e.g., "user_id=2", "age<10", etc.
+    private String conditionValue; // e.g., "user_id=2", "role in (Student, Teacher) and active_rentals < 3"
 
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
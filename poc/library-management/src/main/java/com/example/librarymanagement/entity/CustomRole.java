@@ -28,6 +28,12 @@ public class CustomRole {
     )
     private Set<CustomPermission> permissions = new HashSet<>();
 
+    // Roles whose permissions this role inherits
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "role_parents", joinColumns = @JoinColumn(name = "role_id"))
+    @Column(name = "parent_role_id")
+    private Set<Long> parentRoleIds = new HashSet<>();
+
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
@@ -75,6 +81,14 @@ public class CustomRole {
         this.permissions = permissions;
     }
 
+    public Set<Long> getParentRoleIds() {
+        return parentRoleIds;
+    }
+
+    public void setParentRoleIds(Set<Long> parentRoleIds) {
+        this.parentRoleIds = parentRoleIds;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -0,0 +1,59 @@
+package com.example.librarymanagement.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Version stamp of a slice of authorization data, shared by every node through the database.
+ * The "sequence" row holds the last handed out version, all other rows record the version of
+ * their scope's latest change ("roles", "rules", "assignments" or "user:&lt;userId&gt;").
+ */
+@Entity
+@Table(name = "policy_versions", indexes = @Index(name = "idx_policy_versions_version", columnList = "version"))
+public class PolicyVersion {
+
+    public static final String SEQUENCE_SCOPE = "sequence";
+
+    @Id
+    @Column(length = 191)
+    private String scope;
+
+    @Column(nullable = false)
+    private long version;
+
+    private LocalDateTime updatedAt;
+
+    public PolicyVersion() {
+    }
+
+    public PolicyVersion(String scope, long version, LocalDateTime updatedAt) {
+        this.scope = scope;
+        this.version = version;
+        this.updatedAt = updatedAt;
+    }
+
+    // Getters and Setters
+    public String getScope() {
+        return scope;
+    }
+
+    public void setScope(String scope) {
+        this.scope = scope;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
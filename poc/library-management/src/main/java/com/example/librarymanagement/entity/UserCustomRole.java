@@ -4,11 +4,15 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "user_custom_roles")
+@Table(name = "user_custom_roles",
+       uniqueConstraints = @UniqueConstraint(name = "uk_user_custom_roles_user_role", columnNames = {"user_id", "role_id"}),
+       indexes = @Index(name = "idx_user_custom_roles_expires_at", columnList = "expires_at"))
 public class UserCustomRole {
 
+    // Sequence ids let Hibernate batch inserts, IDENTITY needs one round trip per row
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_custom_roles_seq")
+    @SequenceGenerator(name = "user_custom_roles_seq", sequenceName = "user_custom_roles_seq", allocationSize = 100)
     private Long id;
 
     @Column(name = "user_id", nullable = false)
@@ -26,4 +26,11 @@ public interface BookRentalRepository extends JpaRepository<BookRental, Long> {
 
     @Query("SELECT COUNT(br) FROM BookRental br WHERE br.book.id = :bookId AND br.status = 'ACTIVE'")
     long countActiveRentalsByBookId(@Param("bookId") Long bookId);
+
+    @Query("SELECT COUNT(br) FROM BookRental br WHERE br.userId = :userId AND br.status = 'ACTIVE'")
+    long countActiveRentalsByUserId(@Param("userId") String userId);
+
+    // (userId, count) of every user with at least one active rental
+    @Query("SELECT br.userId, COUNT(br) FROM BookRental br WHERE br.status = 'ACTIVE' GROUP BY br.userId")
+    List<Object[]> countActiveRentalsPerUser();
 }
\ No newline at end of file
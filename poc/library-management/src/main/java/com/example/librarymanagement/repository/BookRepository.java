@@ -1,15 +1,20 @@
 package com.example.librarymanagement.repository;
 
 import com.example.librarymanagement.entity.Book;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, JpaSpecificationExecutor<Book> {
 
     List<Book> findByTitleContainingIgnoreCase(String title);
 
@@ -20,9 +25,32 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     @Query("SELECT b FROM Book b WHERE b.status = :status")
     List<Book> findByStatus(@Param("status") Book.BookStatus status);
 
-    @Query("SELECT b FROM Book b WHERE " +
-           "LOWER(b.title) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
-           "LOWER(b.author) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
-           "LOWER(b.isbn) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
-    List<Book> searchBooks(@Param("searchTerm") String searchTerm);
-}
\ No newline at end of file
+    // Only the columns the search index needs, as (id, title, author, isbn, description) tuples
+    @Transactional(readOnly = true)
+    @Query("SELECT b.id, b.title, b.author, b.isbn, b.description FROM Book b ORDER BY b.id")
+    List<Object[]> findSearchFields();
+
+    // Books no USER_ID, USERNAME or USER_ROLE DENY rule takes from the caller, matched in the database
+    String NOT_DENIED = "NOT EXISTS (SELECT r.id FROM CustomPermissionRule r"
+            + " WHERE r.resourceId = b.id AND r.resourceType = 'BOOK' AND r.effect = 'DENY'"
+            + " AND ((r.conditionType = 'USER_ID' AND r.conditionValue = :userId)"
+            + " OR (r.conditionType = 'USERNAME' AND r.conditionValue = :username)"
+            + " OR (r.conditionType = 'USER_ROLE' AND r.conditionValue IN :roleNames)))";
+
+    // The count queries keep page totals correct
+    @Query(value = "SELECT b FROM Book b WHERE " + NOT_DENIED,
+           countQuery = "SELECT COUNT(b) FROM Book b WHERE " + NOT_DENIED)
+    Page<Book> findAllNotDenied(@Param("userId") String userId,
+                                @Param("username") String username,
+                                @Param("roleNames") Collection<String> roleNames,
+                                Pageable pageable);
+
+    // As findAllNotDenied, also excluding the ids CUSTOM_CONDITION rules deny, which only Java can evaluate
+    @Query(value = "SELECT b FROM Book b WHERE " + NOT_DENIED + " AND b.id NOT IN :deniedIds",
+           countQuery = "SELECT COUNT(b) FROM Book b WHERE " + NOT_DENIED + " AND b.id NOT IN :deniedIds")
+    Page<Book> findAllNotDeniedExcluding(@Param("userId") String userId,
+                                         @Param("username") String username,
+                                         @Param("roleNames") Collection<String> roleNames,
+                                         @Param("deniedIds") Collection<Long> deniedIds,
+                                         Pageable pageable);
+}
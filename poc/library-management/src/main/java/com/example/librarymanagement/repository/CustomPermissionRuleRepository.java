@@ -20,6 +20,8 @@ public interface CustomPermissionRuleRepository extends JpaRepository<CustomPerm
 
     List<CustomPermissionRule> findByConditionType(CustomPermissionRule.ConditionType conditionType);
 
+    List<CustomPermissionRule> findByEffect(CustomPermissionRule.RuleEffect effect);
+
     @Query("SELECT cpr FROM CustomPermissionRule cpr WHERE cpr.resourceType = :resourceType AND cpr.resourceId = :resourceId AND cpr.effect = :effect")
     List<CustomPermissionRule> findByResourceAndEffect(@Param("resourceType") CustomPermission.ResourceType resourceType,
                                                       @Param("resourceId") Long resourceId,
@@ -2,6 +2,9 @@ package com.example.librarymanagement.repository;
 
 import com.example.librarymanagement.entity.CustomRole;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -12,4 +15,18 @@ public interface CustomRoleRepository extends JpaRepository<CustomRole, Long> {
     Optional<CustomRole> findByName(String name);
 
     boolean existsByName(String name);
-}
\ No newline at end of file
+
+    // Set-based cleanup used by role deletion, join rows are removed without loading the role
+
+    @Modifying
+    @Query(value = "DELETE FROM role_permissions WHERE role_id = :roleId", nativeQuery = true)
+    int deleteRolePermissions(@Param("roleId") Long roleId);
+
+    @Modifying
+    @Query(value = "DELETE FROM role_parents WHERE role_id = :roleId OR parent_role_id = :roleId", nativeQuery = true)
+    int deleteRoleParentLinks(@Param("roleId") Long roleId);
+
+    @Modifying
+    @Query("DELETE FROM CustomRole r WHERE r.id = :roleId")
+    int deleteRoleById(@Param("roleId") Long roleId);
+}
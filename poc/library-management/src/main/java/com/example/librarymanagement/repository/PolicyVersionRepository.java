@@ -0,0 +1,25 @@
+package com.example.librarymanagement.repository;
+
+import com.example.librarymanagement.entity.PolicyVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PolicyVersionRepository extends JpaRepository<PolicyVersion, String> {
+
+    // Takes the row lock on the sequence row, which orders concurrent policy writes by commit
+    @Modifying
+    @Query("UPDATE PolicyVersion pv SET pv.version = pv.version + 1 WHERE pv.scope = '" + PolicyVersion.SEQUENCE_SCOPE + "'")
+    int incrementSequence();
+
+    @Query("SELECT pv.version FROM PolicyVersion pv WHERE pv.scope = '" + PolicyVersion.SEQUENCE_SCOPE + "'")
+    Long findCurrentSequence();
+
+    @Query("SELECT pv FROM PolicyVersion pv WHERE pv.version > :version AND pv.scope <> '" + PolicyVersion.SEQUENCE_SCOPE + "' ORDER BY pv.version")
+    List<PolicyVersion> findChangesAfter(@Param("version") long version);
+}
@@ -0,0 +1,32 @@
+package com.example.librarymanagement.repository;
+
+import com.example.librarymanagement.entity.UserCustomRoleArchive;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface UserCustomRoleArchiveRepository extends JpaRepository<UserCustomRoleArchive, Long> {
+
+    // Oldest expired assignments first, served by the expires_at index
+    @Query(value = "SELECT id FROM user_custom_roles WHERE expires_at <= :now ORDER BY expires_at, id " +
+                   "FETCH FIRST :chunkSize ROWS ONLY", nativeQuery = true)
+    List<Long> findExpiredAssignmentIds(@Param("now") LocalDateTime now, @Param("chunkSize") int chunkSize);
+
+    @Modifying
+    @Query(value = "INSERT INTO user_custom_roles_archive " +
+                   "(id, user_id, username, role_id, assigned_at, expires_at, created_at, updated_at, archived_at) " +
+                   "SELECT id, user_id, username, role_id, assigned_at, expires_at, created_at, updated_at, :archivedAt " +
+                   "FROM user_custom_roles WHERE id IN :ids", nativeQuery = true)
+    int copyToArchive(@Param("ids") Collection<Long> ids, @Param("archivedAt") LocalDateTime archivedAt);
+
+    @Modifying
+    @Query(value = "DELETE FROM user_custom_roles WHERE id IN :ids", nativeQuery = true)
+    int deleteAssignments(@Param("ids") Collection<Long> ids);
+}
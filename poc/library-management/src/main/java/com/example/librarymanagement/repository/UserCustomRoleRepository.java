@@ -3,10 +3,13 @@ package com.example.librarymanagement.repository;
 import com.example.librarymanagement.entity.CustomRole;
 import com.example.librarymanagement.entity.UserCustomRole;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,5 +27,29 @@ public interface UserCustomRoleRepository extends JpaRepository<UserCustomRole,
     @Query("SELECT ucr FROM UserCustomRole ucr WHERE ucr.userId = :userId AND (ucr.expiresAt IS NULL OR ucr.expiresAt > CURRENT_TIMESTAMP)")
     List<UserCustomRole> findActiveRolesByUserId(@Param("userId") String userId);
 
+    // A user's live assignments as (roleId, roleName, expiresAt) in one statement, no entities are
+    // loaded so the eager role, permission and parent-role mappings are never touched
+    @Transactional(readOnly = true)
+    @Query("SELECT r.id, r.name, ucr.expiresAt FROM UserCustomRole ucr JOIN ucr.customRole r " +
+           "WHERE ucr.userId = :userId AND (ucr.expiresAt IS NULL OR ucr.expiresAt > CURRENT_TIMESTAMP)")
+    List<Object[]> findActiveRoleTuplesByUserId(@Param("userId") String userId);
+
     boolean existsByUserIdAndCustomRole(String userId, CustomRole customRole);
-}
\ No newline at end of file
+
+    // Existing assignments of a role to some users as (id, userId, expiresAt), expired ones included
+    @Query("SELECT ucr.id, ucr.userId, ucr.expiresAt FROM UserCustomRole ucr " +
+           "WHERE ucr.customRole = :role AND ucr.userId IN :userIds")
+    List<Object[]> findAssignmentTuples(@Param("role") CustomRole role, @Param("userIds") Collection<String> userIds);
+
+    // Every live assignment as (userId, username, roleId), without loading entities
+    @Query("SELECT ucr.userId, ucr.username, ucr.customRole.id FROM UserCustomRole ucr " +
+           "WHERE ucr.expiresAt IS NULL OR ucr.expiresAt > CURRENT_TIMESTAMP")
+    List<Object[]> findActiveAssignmentTuples();
+
+    // Deletes at most chunkSize assignments of a role, callers repeat until it returns 0
+    @Modifying
+    @Query(value = "DELETE FROM user_custom_roles WHERE id IN " +
+                   "(SELECT id FROM user_custom_roles WHERE role_id = :roleId FETCH FIRST :chunkSize ROWS ONLY)",
+           nativeQuery = true)
+    int deleteChunkByRoleId(@Param("roleId") Long roleId, @Param("chunkSize") int chunkSize);
+}
@@ -0,0 +1,32 @@
+package com.example.librarymanagement.service;
+
+/**
+ * One entry of the audit trail: an authorization decision or a policy change.
+ */
+public class AuditEvent {
+
+    public static final String DECISION = "DECISION";
+    public static final String POLICY_CHANGE = "POLICY_CHANGE";
+
+    private final long timestampMillis;
+    private final String type;
+    private final String details;
+
+    public AuditEvent(long timestampMillis, String type, String details) {
+        this.timestampMillis = timestampMillis;
+        this.type = type;
+        this.details = details;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getDetails() {
+        return details;
+    }
+}
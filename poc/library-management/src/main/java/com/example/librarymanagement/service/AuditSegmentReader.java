@@ -0,0 +1,119 @@
+package com.example.librarymanagement.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Scans the segments written by {@link AuditSegmentWriter} for a time range.
+ *
+ * Segment names carry the timestamp of their first record, so only segments that can overlap the
+ * range are memory-mapped. A record with a bad length or checksum ends the scan of its segment:
+ * it is the torn tail of a write that never completed. Segments deleted by the writer's retention
+ * while a scan runs are skipped.
+ */
+public class AuditSegmentReader {
+
+    private final Path directory;
+
+    public AuditSegmentReader(Path directory) {
+        this.directory = directory;
+    }
+
+    public List<AuditEvent> read(long fromMillis, long toMillis, int limit) throws IOException {
+        List<AuditEvent> events = new ArrayList<>();
+        List<Path> segments = listSegments(directory);
+        for (int i = 0; i < segments.size() && events.size() < limit; i++) {
+            long start = startMillisOf(segments.get(i));
+            long nextStart = i + 1 < segments.size() ? startMillisOf(segments.get(i + 1)) : Long.MAX_VALUE;
+            if (start > toMillis || nextStart < fromMillis) {
+                continue;
+            }
+            try {
+                scan(segments.get(i), fromMillis, toMillis, limit, events);
+            } catch (NoSuchFileException e) {
+                // Deleted by retention after it was listed
+            }
+        }
+        return events;
+    }
+
+    private void scan(Path segment, long fromMillis, long toMillis, int limit, List<AuditEvent> events) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            CRC32 crc = new CRC32();
+            ByteBuffer timestampBytes = ByteBuffer.allocate(Long.BYTES);
+            while (buffer.remaining() >= AuditSegmentWriter.HEADER_BYTES && events.size() < limit) {
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                long timestamp = buffer.getLong();
+                if (length < 0 || length > buffer.remaining()) {
+                    return;
+                }
+                byte[] payload = new byte[length];
+                buffer.get(payload);
+
+                crc.reset();
+                crc.update(timestampBytes.putLong(0, timestamp).array(), 0, Long.BYTES);
+                crc.update(payload, 0, length);
+                if ((int) crc.getValue() != checksum) {
+                    return;
+                }
+
+                if (timestamp >= fromMillis && timestamp <= toMillis) {
+                    events.add(decode(timestamp, payload));
+                }
+            }
+        }
+    }
+
+    private static AuditEvent decode(long timestamp, byte[] payload) {
+        String text = new String(payload, StandardCharsets.UTF_8);
+        int separator = text.indexOf('\t');
+        return separator < 0
+                ? new AuditEvent(timestamp, text, "")
+                : new AuditEvent(timestamp, text.substring(0, separator), text.substring(separator + 1));
+    }
+
+    static List<Path> listSegments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(AuditSegmentReader::isSegment)
+                    .sorted(Comparator.comparingLong(AuditSegmentReader::sequenceOf))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    static long startMillisOf(Path segment) {
+        return Long.parseLong(nameParts(segment)[0]);
+    }
+
+    static long sequenceOf(Path segment) {
+        return Long.parseLong(nameParts(segment)[1]);
+    }
+
+    private static boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        return name.matches("audit-\\d+-\\d+\\.seg");
+    }
+
+    private static String[] nameParts(Path segment) {
+        String name = segment.getFileName().toString();
+        return name.substring(AuditSegmentWriter.SEGMENT_PREFIX.length(),
+                name.length() - AuditSegmentWriter.SEGMENT_SUFFIX.length()).split("-");
+    }
+}
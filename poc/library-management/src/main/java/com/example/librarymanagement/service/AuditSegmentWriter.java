@@ -0,0 +1,197 @@
+package com.example.librarymanagement.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Appends audit events to rotating segment files. Not thread-safe, owned by a single writer thread.
+ *
+ * Each record is [int length][int crc32][long timestamp][payload], where the CRC covers the timestamp
+ * and the UTF-8 payload. A whole batch is encoded into one buffer and written with a single channel
+ * write (group commit); the fsync policy decides how often the channel is forced to disk. A new
+ * segment is started on open and whenever the next batch would exceed the segment size.
+ *
+ * Each rotation applies the retention: the oldest segments beyond the maximum count are deleted, as
+ * are segments whose records are all older than the retention period. The open segment is kept.
+ */
+public class AuditSegmentWriter implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditSegmentWriter.class);
+
+    public enum FsyncPolicy {
+        NEVER,    // leave flushing to the operating system
+        BATCH,    // force after every batch
+        INTERVAL  // force at most once per interval
+    }
+
+    static final int HEADER_BYTES = 16;
+    static final String SEGMENT_PREFIX = "audit-";
+    static final String SEGMENT_SUFFIX = ".seg";
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalMillis;
+    private final int maxSegments;
+    private final long retentionMillis;
+
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer encodeBuffer = ByteBuffer.allocateDirect(64 * 1024);
+    private final ByteBuffer timestampBytes = ByteBuffer.allocate(Long.BYTES);
+
+    private FileChannel channel;
+    private long channelSize;
+    private long nextSequence;
+    private long lastForceMillis;
+    private boolean unforcedWrites;
+
+    // Written by the owning thread only, read by stats
+    private volatile long deletedSegments;
+
+    /**
+     * @param maxSegments     segments kept on disk including the open one, 0 for no limit
+     * @param retentionMillis age after which a closed segment is deleted, 0 to keep segments forever
+     */
+    public AuditSegmentWriter(Path directory, long segmentBytes, FsyncPolicy fsyncPolicy, long fsyncIntervalMillis,
+                              int maxSegments, long retentionMillis) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalMillis = fsyncIntervalMillis;
+        this.maxSegments = maxSegments;
+        this.retentionMillis = retentionMillis;
+        Files.createDirectories(directory);
+        this.nextSequence = AuditSegmentReader.listSegments(directory).stream()
+                .mapToLong(AuditSegmentReader::sequenceOf)
+                .max()
+                .orElse(-1L) + 1;
+    }
+
+    public void append(List<AuditEvent> batch) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        encode(batch);
+        if (channel == null || (channelSize > 0 && channelSize + encodeBuffer.remaining() > segmentBytes)) {
+            rotate(batch.get(0).getTimestampMillis());
+        }
+        while (encodeBuffer.hasRemaining()) {
+            channelSize += channel.write(encodeBuffer);
+        }
+        unforcedWrites = true;
+
+        if (fsyncPolicy == FsyncPolicy.BATCH) {
+            force();
+        } else {
+            forceIfDue();
+        }
+    }
+
+    // Also called while idle so the last batch of a burst does not wait for the next write
+    public void forceIfDue() throws IOException {
+        if (fsyncPolicy == FsyncPolicy.INTERVAL && System.currentTimeMillis() - lastForceMillis >= fsyncIntervalMillis) {
+            force();
+        }
+    }
+
+    public void force() throws IOException {
+        if (channel != null && unforcedWrites) {
+            channel.force(false);
+            unforcedWrites = false;
+        }
+        lastForceMillis = System.currentTimeMillis();
+    }
+
+    public long getDeletedSegments() {
+        return deletedSegments;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            force();
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private void encode(List<AuditEvent> batch) {
+        encodeBuffer.clear();
+        for (AuditEvent event : batch) {
+            byte[] payload = (event.getType() + '\t' + event.getDetails()).getBytes(StandardCharsets.UTF_8);
+            ensureCapacity(HEADER_BYTES + payload.length);
+
+            timestampBytes.clear();
+            timestampBytes.putLong(event.getTimestampMillis());
+            crc.reset();
+            crc.update(timestampBytes.array(), 0, Long.BYTES);
+            crc.update(payload, 0, payload.length);
+
+            encodeBuffer.putInt(payload.length);
+            encodeBuffer.putInt((int) crc.getValue());
+            encodeBuffer.putLong(event.getTimestampMillis());
+            encodeBuffer.put(payload);
+        }
+        encodeBuffer.flip();
+    }
+
+    private void ensureCapacity(int recordBytes) {
+        if (encodeBuffer.remaining() >= recordBytes) {
+            return;
+        }
+        int capacity = encodeBuffer.capacity();
+        while (capacity - encodeBuffer.position() < recordBytes) {
+            capacity *= 2;
+        }
+        ByteBuffer larger = ByteBuffer.allocateDirect(capacity);
+        encodeBuffer.flip();
+        larger.put(encodeBuffer);
+        encodeBuffer = larger;
+    }
+
+    private void rotate(long startMillis) throws IOException {
+        close();
+        Path segment = directory.resolve(segmentName(startMillis, nextSequence++));
+        channel = FileChannel.open(segment, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        channelSize = 0;
+        applyRetention(System.currentTimeMillis());
+    }
+
+    // Failures are logged and retried on the next rotation, they must not fail the batch being written
+    private void applyRetention(long nowMillis) {
+        if (maxSegments <= 0 && retentionMillis <= 0) {
+            return;
+        }
+        try {
+            List<Path> segments = AuditSegmentReader.listSegments(directory);
+            // The last segment is the open one; a segment's records end where the next one starts
+            for (int i = 0; i < segments.size() - 1; i++) {
+                boolean overCount = maxSegments > 0 && segments.size() - i > maxSegments;
+                boolean expired = retentionMillis > 0
+                        && AuditSegmentReader.startMillisOf(segments.get(i + 1)) < nowMillis - retentionMillis;
+                if (!overCount && !expired) {
+                    break;
+                }
+                Files.deleteIfExists(segments.get(i));
+                deletedSegments++;
+            }
+        } catch (IOException e) {
+            log.warn("Failed to delete old audit segments in {}", directory, e);
+        }
+    }
+
+    static String segmentName(long startMillis, long sequence) {
+        return String.format("%s%013d-%08d%s", SEGMENT_PREFIX, startMillis, sequence, SEGMENT_SUFFIX);
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.librarymanagement.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Durable audit trail of authorization decisions and policy changes.
+ *
+ * Events are queued in a ring buffer and a background thread appends them in batches through an
+ * {@link AuditSegmentWriter}. Request threads never wait for the disk: when the buffer is full the
+ * event is dropped and counted, so a slow or stalled disk shows up as a growing dropped count in
+ * the stats rather than as request latency. Policy changes made inside a transaction are only
+ * recorded once it commits. Old segments are deleted by count and age, see the writer.
+ */
+@Component
+public class AuditTrail {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditTrail.class);
+
+    @Value("${library.audit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${library.audit.directory:data/audit}")
+    private String directory;
+
+    @Value("${library.audit.segment-size-mb:64}")
+    private int segmentSizeMb;
+
+    @Value("${library.audit.batch-size:512}")
+    private int batchSize;
+
+    @Value("${library.audit.buffer-size:65536}")
+    private int bufferSize;
+
+    @Value("${library.audit.fsync:BATCH}")
+    private AuditSegmentWriter.FsyncPolicy fsyncPolicy;
+
+    @Value("${library.audit.fsync-interval-ms:1000}")
+    private long fsyncIntervalMillis;
+
+    @Value("${library.audit.max-segments:100}")
+    private int maxSegments;
+
+    @Value("${library.audit.retention-days:30}")
+    private int retentionDays;
+
+    private MpscRingBuffer<AuditEvent> buffer;
+    private AuditSegmentWriter writer;
+    private Thread writerThread;
+    private volatile boolean running;
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        writer = new AuditSegmentWriter(directoryPath(), segmentSizeMb * 1024L * 1024L, fsyncPolicy, fsyncIntervalMillis,
+                maxSegments, TimeUnit.DAYS.toMillis(retentionDays));
+        buffer = new MpscRingBuffer<>(bufferSize);
+        running = true;
+        writerThread = new Thread(this::drain, "audit-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writerThread != null) {
+            running = false;
+            LockSupport.unpark(writerThread);
+            writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void recordDecision(DecisionRecord record) {
+        if (!enabled) {
+            return;
+        }
+        append(new AuditEvent(record.getTimestampMillis(), AuditEvent.DECISION, record.toLogLine()));
+    }
+
+    public void recordChange(String action, String details) {
+        if (!enabled) {
+            return;
+        }
+        String actor = currentActor();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    appendChange(actor, action, details);
+                }
+            });
+        } else {
+            appendChange(actor, action, details);
+        }
+    }
+
+    public List<AuditEvent> read(long fromMillis, long toMillis, int limit) {
+        try {
+            return new AuditSegmentReader(directoryPath()).read(fromMillis, toMillis, limit);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read audit segments", e);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("fsync", fsyncPolicy);
+        stats.put("written", written.sum());
+        stats.put("batches", batches.sum());
+        stats.put("failed", failed.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("pending", buffer != null ? buffer.size() : 0);
+        stats.put("deletedSegments", writer != null ? writer.getDeletedSegments() : 0);
+        return stats;
+    }
+
+    private void appendChange(String actor, String action, String details) {
+        append(new AuditEvent(System.currentTimeMillis(), AuditEvent.POLICY_CHANGE,
+                "actor=" + actor + " action=" + action + " " + details));
+    }
+
+    private void append(AuditEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (!running) {
+            failed.increment();
+        } else if (!buffer.offer(event)) {
+            // The writer is behind, the request does not wait for it
+            dropped.increment();
+        }
+    }
+
+    private void drain() {
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        while (true) {
+            AuditEvent event;
+            while (batch.size() < batchSize && (event = buffer.poll()) != null) {
+                batch.add(event);
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            } else if (running) {
+                forceIfDue();
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            } else {
+                break; // stopped and drained
+            }
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            log.error("Failed to close audit segment", e);
+        }
+    }
+
+    private void write(List<AuditEvent> batch) {
+        try {
+            writer.append(batch);
+            written.add(batch.size());
+            batches.increment();
+        } catch (IOException e) {
+            failed.add(batch.size());
+            log.error("Failed to write {} audit events", batch.size(), e);
+        }
+    }
+
+    private void forceIfDue() {
+        try {
+            writer.forceIfDue();
+        } catch (IOException e) {
+            log.error("Failed to force audit segment to disk", e);
+        }
+    }
+
+    private Path directoryPath() {
+        return Paths.get(directory);
+    }
+
+    private static String currentActor() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : "system";
+    }
+}
@@ -8,7 +8,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -37,6 +39,21 @@ public class BookRentalService {
         return bookRentalRepository.findByUserIdAndStatus(userId, BookRental.RentalStatus.ACTIVE);
     }
 
+    @Transactional(readOnly = true)
+    public long countActiveRentalsByUser(String userId) {
+        return bookRentalRepository.countActiveRentalsByUserId(userId);
+    }
+
+    // Active rental counts of all users in one query, users without active rentals are absent
+    @Transactional(readOnly = true)
+    public Map<String, Long> countActiveRentalsPerUser() {
+        Map<String, Long> counts = new HashMap<>();
+        for (Object[] row : bookRentalRepository.countActiveRentalsPerUser()) {
+            counts.put((String) row[0], (Long) row[1]);
+        }
+        return counts;
+    }
+
     public BookRental rentBook(Long bookId, String userId, String username, int rentalDays) {
         if (!bookService.isBookAvailable(bookId)) {
             throw new RuntimeException("Book is not available for rental");
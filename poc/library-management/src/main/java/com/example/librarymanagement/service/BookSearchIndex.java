@@ -0,0 +1,270 @@
+package com.example.librarymanagement.service;
+
+import com.example.librarymanagement.entity.Book;
+import com.example.librarymanagement.repository.BookRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory full-text index of the book catalog, see {@link BookTextIndex}.
+ *
+ * Built from the books table once the application is ready, in parallel slices on its own pool,
+ * and kept current by {@link BookSearchIndexListener}: saved and deleted books are applied after
+ * their transaction commits. Changes committed during a rebuild are replayed on the new index
+ * before it is swapped in. Until the first rebuild finishes, and for queries shorter than three
+ * characters, {@link #search} answers null and callers use the database query instead.
+ */
+@Component
+public class BookSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(BookSearchIndex.class);
+
+    private static final int MIN_QUERY_LENGTH = BookTextIndex.MIN_TRIGRAM_LENGTH;
+
+    private static final int MIN_REBUILD_SLICE = 1000;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Value("${library.search.enabled:true}")
+    private boolean enabled;
+
+    @Value("${library.search.max-results:200}")
+    private int maxResults;
+
+    @Value("${library.search.rebuild-parallelism:0}")
+    private int parallelism;
+
+    // Deleted and replaced books kept as tombstones before the index is rebuilt without them
+    @Value("${library.search.max-tombstones:10000}")
+    private int maxTombstones;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock; null until the first rebuild
+    private BookTextIndex index;
+
+    // Guarded by lock; changes committed while a rebuild runs, null otherwise
+    private List<Consumer<BookTextIndex>> pendingChanges;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private ForkJoinPool pool;
+
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+    private final LongAdder updates = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+    private volatile long lastRebuildMillis;
+
+    @PostConstruct
+    public void start() {
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void stop() {
+        pool.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            // Searches use the database until the index is ready, startup does not wait for it
+            pool.execute(this::rebuild);
+        }
+    }
+
+    /**
+     * Ids of the books matching every word of the query, best match first, or null when the index
+     * cannot answer: disabled, not built yet, or a query shorter than three characters.
+     */
+    public List<Long> search(String query) {
+        if (query == null || query.trim().length() < MIN_QUERY_LENGTH) {
+            fallbacks.increment();
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            if (index == null) {
+                fallbacks.increment();
+                return null;
+            }
+            searches.increment();
+            return index.search(query, maxResults);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Also caps the database search, so both paths return the same number of books
+    public int getMaxResults() {
+        return maxResults;
+    }
+
+    /**
+     * Indexes the book as it is now once the current transaction commits, immediately without one.
+     */
+    public void indexAfterCommit(Book book) {
+        long bookId = book.getId();
+        String title = book.getTitle();
+        String author = book.getAuthor();
+        String isbn = book.getIsbn();
+        String description = book.getDescription();
+        afterCommit(index -> {
+            if (index.upsert(bookId, title, author, isbn, description)) {
+                updates.increment();
+            }
+        });
+    }
+
+    public void removeAfterCommit(Long bookId) {
+        afterCommit(index -> {
+            index.remove(bookId);
+            updates.increment();
+        });
+    }
+
+    /**
+     * Rebuilds the index from the books table; a call while another rebuild runs returns at once.
+     */
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            pendingChanges = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        BookTextIndex built = null;
+        try {
+            long started = System.currentTimeMillis();
+            built = build(bookRepository.findSearchFields());
+            lastRebuildMillis = System.currentTimeMillis() - started;
+            rebuilds.increment();
+        } catch (RuntimeException e) {
+            log.error("Failed to build the book search index: {}", e.getMessage(), e);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (built != null) {
+                    for (Consumer<BookTextIndex> change : pendingChanges) {
+                        change.accept(built);
+                    }
+                    index = built;
+                }
+                pendingChanges = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            rebuilding.set(false);
+        }
+        if (built != null) {
+            log.info("Indexed {} books for search in {} ms ({} trigrams, {} words)",
+                    built.size(), lastRebuildMillis, built.trigramCount(), built.wordCount());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            stats.put("ready", index != null);
+            stats.put("books", index != null ? index.size() : 0);
+            stats.put("tombstones", index != null ? index.deletedCount() : 0);
+            stats.put("trigrams", index != null ? index.trigramCount() : 0);
+            stats.put("words", index != null ? index.wordCount() : 0);
+        } finally {
+            lock.readLock().unlock();
+        }
+        stats.put("searches", searches.sum());
+        stats.put("fallbacks", fallbacks.sum());
+        stats.put("updates", updates.sum());
+        stats.put("rebuilds", rebuilds.sum());
+        stats.put("lastRebuildMillis", lastRebuildMillis);
+        return stats;
+    }
+
+    private BookTextIndex build(List<Object[]> rows) {
+        int slices = Math.max(1, Math.min(pool.getParallelism() * 4, rows.size() / MIN_REBUILD_SLICE));
+        int sliceSize = (rows.size() + slices - 1) / slices;
+        List<ForkJoinTask<BookTextIndex>> tasks = new ArrayList<>();
+        for (int from = 0; from < rows.size(); from += sliceSize) {
+            List<Object[]> slice = rows.subList(from, Math.min(from + sliceSize, rows.size()));
+            tasks.add(pool.submit(() -> buildSlice(slice)));
+        }
+        // Appended in slice order, so document numbers and postings stay sorted
+        BookTextIndex built = new BookTextIndex();
+        for (ForkJoinTask<BookTextIndex> task : tasks) {
+            built.append(task.join());
+        }
+        return built;
+    }
+
+    private static BookTextIndex buildSlice(List<Object[]> rows) {
+        BookTextIndex slice = new BookTextIndex();
+        for (Object[] row : rows) {
+            slice.upsert((Long) row[0], (String) row[1], (String) row[2], (String) row[3], (String) row[4]);
+        }
+        return slice;
+    }
+
+    private void afterCommit(Consumer<BookTextIndex> change) {
+        if (!enabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(change);
+                }
+            });
+        } else {
+            apply(change);
+        }
+    }
+
+    private void apply(Consumer<BookTextIndex> change) {
+        boolean compact;
+        lock.writeLock().lock();
+        try {
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+            if (index == null) {
+                return;
+            }
+            change.accept(index);
+            compact = index.deletedCount() > Math.max(maxTombstones, index.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (compact && !rebuilding.get()) {
+            pool.execute(this::rebuild);
+        }
+    }
+}
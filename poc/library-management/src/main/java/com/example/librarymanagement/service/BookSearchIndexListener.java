@@ -0,0 +1,31 @@
+package com.example.librarymanagement.service;
+
+import com.example.librarymanagement.entity.Book;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Entity listener of {@link Book} feeding saves and deletes to the {@link BookSearchIndex}.
+ *
+ * Hibernate creates it through Spring's bean container, so it is autowired without being a
+ * component itself; the index is looked up lazily since entity listeners are created before it.
+ */
+public class BookSearchIndexListener {
+
+    @Autowired
+    private ObjectProvider<BookSearchIndex> bookSearchIndex;
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Book book) {
+        bookSearchIndex.getObject().indexAfterCommit(book);
+    }
+
+    @PostRemove
+    public void onRemove(Book book) {
+        bookSearchIndex.getObject().removeAfterCommit(book.getId());
+    }
+}
@@ -1,13 +1,25 @@
 package com.example.librarymanagement.service;
 
 import com.example.librarymanagement.entity.Book;
+import com.example.librarymanagement.entity.CustomPermission;
 import com.example.librarymanagement.repository.BookRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @Transactional
@@ -16,16 +28,88 @@ public class BookService {
     @Autowired
     private BookRepository bookRepository;
 
+    @Autowired
+    private DenyRuleIndex denyRuleIndex;
+
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
     public List<Book> findAllBooks() {
         return bookRepository.findAll();
     }
 
+    // Books the caller may READ: role mask first, then DENY rules are filtered inside the query,
+    // with only the ids denied by CUSTOM_CONDITION rules bound as parameters
+    @Transactional(readOnly = true)
+    public Page<Book> findReadableBooks(EvaluationContext context, Pageable pageable) {
+        if (!PermissionMatrix.allows(context.getPermissionMask(), CustomPermission.ResourceType.BOOK,
+                CustomPermission.PermissionAction.READ)) {
+            return Page.empty(pageable);
+        }
+        Set<Long> deniedIds = denyRuleIndex.conditionDeniedResourceIds(CustomPermission.ResourceType.BOOK, context);
+        if (deniedIds.isEmpty()) {
+            return bookRepository.findAllNotDenied(context.getUserId(), context.getUsername(),
+                    context.getRoleNames(), pageable);
+        }
+        return bookRepository.findAllNotDeniedExcluding(context.getUserId(), context.getUsername(),
+                context.getRoleNames(), deniedIds, pageable);
+    }
+
     public Optional<Book> findBookById(Long id) {
         return bookRepository.findById(id);
     }
 
+    // Ranked by the in-memory index, the LIKE query when the index cannot answer
+    @Transactional(readOnly = true)
     public List<Book> searchBooks(String searchTerm) {
-        return bookRepository.searchBooks(searchTerm);
+        List<Long> rankedIds = bookSearchIndex.search(searchTerm);
+        if (rankedIds == null) {
+            return searchBooksInDatabase(searchTerm);
+        }
+        Map<Long, Book> booksById = new HashMap<>();
+        for (Book book : bookRepository.findAllById(rankedIds)) {
+            booksById.put(book.getId(), book);
+        }
+        List<Book> books = new ArrayList<>(rankedIds.size());
+        for (Long id : rankedIds) {
+            Book book = booksById.get(id);
+            if (book != null) {
+                books.add(book);
+            }
+        }
+        return books;
+    }
+
+    /**
+     * The index rules in SQL: every word of the query must occur in the title, author, ISBN or
+     * description, at most max-results books. Unranked, in id order like the index ties, and the
+     * description is matched by substring where the index needs a whole word.
+     */
+    private List<Book> searchBooksInDatabase(String searchTerm) {
+        List<String> words = BookTextIndex.words(BookTextIndex.normalize(searchTerm));
+        if (words.isEmpty()) {
+            return new ArrayList<>();
+        }
+        PageRequest firstPage = PageRequest.of(0, bookSearchIndex.getMaxResults(), Sort.by("id"));
+        return bookRepository.findAll(containsEveryWord(words), firstPage).getContent();
+    }
+
+    private static Specification<Book> containsEveryWord(List<String> words) {
+        return (book, query, builder) -> {
+            List<Expression<String>> fields = List.of(builder.lower(book.get("title")), builder.lower(book.get("author")),
+                    builder.lower(book.get("isbn")), builder.lower(book.get("description")));
+            List<Predicate> wordPredicates = new ArrayList<>(words.size());
+            for (String word : words) {
+                // Words are letters and digits only, nothing to escape for LIKE
+                String pattern = "%" + word + "%";
+                List<Predicate> fieldPredicates = new ArrayList<>(fields.size());
+                for (Expression<String> field : fields) {
+                    fieldPredicates.add(builder.like(field, pattern));
+                }
+                wordPredicates.add(builder.or(fieldPredicates.toArray(new Predicate[0])));
+            }
+            return builder.and(wordPredicates.toArray(new Predicate[0]));
+        };
     }
 
     public List<Book> findAvailableBooks() {
@@ -0,0 +1,494 @@
+package com.example.librarymanagement.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Inverted index over the searchable fields of books, not thread-safe; {@link BookSearchIndex}
+ * guards it.
+ *
+ * Title, author and ISBN are indexed by trigram, so any substring of three or more characters is
+ * found by intersecting a few posting lists and confirming on the stored lower-cased field. Every
+ * field, including the description, is also indexed by whole word, which covers description
+ * matches and terms shorter than three characters. Documents get increasing numbers as they are
+ * added, which keeps every posting list sorted; an updated book is removed and added again, and
+ * removed documents stay behind as tombstones until the next rebuild.
+ */
+final class BookTextIndex {
+
+    static final int MIN_TRIGRAM_LENGTH = 3;
+
+    private long[] bookIds = new long[64];
+    private String[] titles = new String[64];
+    private String[] authors = new String[64];
+    private String[] isbns = new String[64];
+    private int[] descriptionHashes = new int[64];
+    private int documentCount;
+
+    private final BitSet deleted = new BitSet();
+    private int deletedCount;
+    private final Map<Long, Integer> documentsByBookId = new HashMap<>();
+
+    private final TrigramTable trigrams = new TrigramTable();
+    private final Map<String, Postings> words = new HashMap<>();
+
+    /**
+     * Adds or replaces a book, returns false when none of its indexed fields changed.
+     */
+    boolean upsert(long bookId, String title, String author, String isbn, String description) {
+        String normalizedTitle = normalize(title);
+        String normalizedAuthor = normalize(author);
+        String normalizedIsbn = normalize(isbn);
+        String normalizedDescription = normalize(description);
+
+        Integer existing = documentsByBookId.get(bookId);
+        if (existing != null) {
+            int document = existing;
+            if (titles[document].equals(normalizedTitle) && authors[document].equals(normalizedAuthor)
+                    && isbns[document].equals(normalizedIsbn)
+                    && descriptionHashes[document] == normalizedDescription.hashCode()) {
+                return false;
+            }
+            remove(bookId);
+        }
+
+        int document = documentCount++;
+        ensureCapacity(documentCount);
+        bookIds[document] = bookId;
+        titles[document] = normalizedTitle;
+        authors[document] = normalizedAuthor;
+        isbns[document] = normalizedIsbn;
+        descriptionHashes[document] = normalizedDescription.hashCode();
+        documentsByBookId.put(bookId, document);
+
+        addTrigrams(normalizedTitle, document);
+        addTrigrams(normalizedAuthor, document);
+        addTrigrams(normalizedIsbn, document);
+        addWords(normalizedTitle, document);
+        addWords(normalizedAuthor, document);
+        addWords(normalizedIsbn, document);
+        addWords(normalizedDescription, document);
+        return true;
+    }
+
+    void remove(long bookId) {
+        Integer document = documentsByBookId.remove(bookId);
+        if (document != null) {
+            deleted.set(document);
+            deletedCount++;
+            // The postings keep the number, the stored fields are not needed anymore
+            titles[document] = null;
+            authors[document] = null;
+            isbns[document] = null;
+        }
+    }
+
+    /**
+     * Ids of the books matching every term of the query, best match first, at most maxResults.
+     *
+     * A term matches a book when it is a substring of its title, author or ISBN (terms of three or
+     * more characters) or a whole word of any field. Title matches rank above author, ISBN and
+     * description matches, whole words above partial ones, and the full query as a phrase adds a
+     * bonus; ties keep insertion order.
+     */
+    List<Long> search(String query, int maxResults) {
+        String normalized = normalize(query).trim();
+        List<String> terms = words(normalized);
+        if (terms.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // Only the most selective term reads its postings, scoring checks the others per candidate
+        String selective = terms.get(0);
+        int fewest = Integer.MAX_VALUE;
+        for (String term : terms) {
+            int estimate = estimateMatches(term);
+            if (estimate < fewest) {
+                selective = term;
+                fewest = estimate;
+            }
+        }
+        int[] candidates = candidates(selective);
+
+        Postings[] termWords = new Postings[terms.size()];
+        for (int t = 0; t < terms.size(); t++) {
+            termWords[t] = words.get(terms.get(t));
+        }
+
+        // Score in the high bits, inverted document number in the low bits: one sort ranks both
+        long[] ranked = new long[candidates.length];
+        int matched = 0;
+        for (int document : candidates) {
+            if (deleted.get(document)) {
+                continue;
+            }
+            int score = score(document, normalized, terms, termWords);
+            if (score > 0) {
+                ranked[matched++] = ((long) score << 32) | (Integer.MAX_VALUE - document);
+            }
+        }
+        Arrays.sort(ranked, 0, matched);
+
+        List<Long> bookIdsByRank = new ArrayList<>(Math.min(matched, maxResults));
+        for (int i = matched - 1; i >= 0 && bookIdsByRank.size() < maxResults; i--) {
+            bookIdsByRank.add(bookIds[Integer.MAX_VALUE - (int) ranked[i]]);
+        }
+        return bookIdsByRank;
+    }
+
+    /**
+     * Appends the documents of an index built over a later slice of the same books, used to merge
+     * the parts of a parallel rebuild in order.
+     */
+    void append(BookTextIndex part) {
+        int offset = documentCount;
+        documentCount += part.documentCount;
+        ensureCapacity(documentCount);
+        System.arraycopy(part.bookIds, 0, bookIds, offset, part.documentCount);
+        System.arraycopy(part.titles, 0, titles, offset, part.documentCount);
+        System.arraycopy(part.authors, 0, authors, offset, part.documentCount);
+        System.arraycopy(part.isbns, 0, isbns, offset, part.documentCount);
+        System.arraycopy(part.descriptionHashes, 0, descriptionHashes, offset, part.documentCount);
+        for (int document = part.deleted.nextSetBit(0); document >= 0; document = part.deleted.nextSetBit(document + 1)) {
+            deleted.set(offset + document);
+        }
+        deletedCount += part.deletedCount;
+        part.documentsByBookId.forEach((bookId, document) -> documentsByBookId.put(bookId, offset + document));
+        part.trigrams.forEach((trigram, postings) -> trigrams.getOrCreate(trigram).append(postings, offset));
+        part.words.forEach((word, postings) ->
+                words.computeIfAbsent(word, key -> new Postings()).append(postings, offset));
+    }
+
+    int size() {
+        return documentsByBookId.size();
+    }
+
+    int deletedCount() {
+        return deletedCount;
+    }
+
+    int trigramCount() {
+        return trigrams.size();
+    }
+
+    int wordCount() {
+        return words.size();
+    }
+
+    // Upper bound of the books a term can match, without reading any postings
+    private int estimateMatches(String term) {
+        Postings wordPostings = words.get(term);
+        int estimate = wordPostings != null ? wordPostings.size : 0;
+        if (term.length() >= MIN_TRIGRAM_LENGTH) {
+            int rarest = Integer.MAX_VALUE;
+            for (int i = 0; i + MIN_TRIGRAM_LENGTH <= term.length() && rarest > 0; i++) {
+                Postings postings = trigrams.get(trigram(term, i));
+                rarest = Math.min(rarest, postings != null ? postings.size : 0);
+            }
+            estimate += rarest;
+        }
+        return estimate;
+    }
+
+    private int[] candidates(String term) {
+        Postings wordPostings = words.get(term);
+        int[] wordMatches = wordPostings != null ? Arrays.copyOf(wordPostings.documents, wordPostings.size) : new int[0];
+        if (term.length() < MIN_TRIGRAM_LENGTH) {
+            return wordMatches;
+        }
+
+        // Rarest trigram first, so the intersection never grows past the shortest list
+        List<Postings> lists = new ArrayList<>();
+        for (int i = 0; i + MIN_TRIGRAM_LENGTH <= term.length(); i++) {
+            Postings postings = trigrams.get(trigram(term, i));
+            if (postings == null) {
+                return wordMatches;
+            }
+            lists.add(postings);
+        }
+        lists.sort((a, b) -> Integer.compare(a.size, b.size));
+        Postings rarest = lists.get(0);
+        int[] substringMatches = Arrays.copyOf(rarest.documents, rarest.size);
+        for (int i = 1; i < lists.size() && substringMatches.length > 0; i++) {
+            substringMatches = intersect(substringMatches, lists.get(i).documents, lists.get(i).size);
+        }
+        return union(substringMatches, wordMatches);
+    }
+
+    private int score(int document, String phrase, List<String> terms, Postings[] termWords) {
+        String title = titles[document];
+        String author = authors[document];
+        String isbn = isbns[document];
+        int score = 0;
+        for (int t = 0; t < terms.size(); t++) {
+            String term = terms.get(t);
+            int termScore = 0;
+            if (term.length() >= MIN_TRIGRAM_LENGTH) {
+                termScore = Math.max(termScore, fieldScore(title, term, 8));
+                termScore = Math.max(termScore, fieldScore(author, term, 6));
+                termScore = Math.max(termScore, isbn.contains(term) ? 5 : 0);
+            } else {
+                termScore = Math.max(termScore, isWord(title, term) ? 8 : 0);
+                termScore = Math.max(termScore, isWord(author, term) ? 6 : 0);
+            }
+            if (termScore == 0 && termWords[t] != null && termWords[t].contains(document)) {
+                // Only the description (or the ISBN) has it as a word
+                termScore = 1;
+            }
+            if (termScore == 0) {
+                // All trigrams present but not next to each other
+                return 0;
+            }
+            score += termScore;
+        }
+
+        if (title.equals(phrase)) {
+            score += 20;
+        } else if (terms.size() > 1 && title.contains(phrase)) {
+            score += 10;
+        } else if (terms.size() > 1 && author.contains(phrase)) {
+            score += 5;
+        }
+        if (isbn.equals(phrase)) {
+            score += 50;
+        }
+        return score;
+    }
+
+    // Full weight for a whole word, half for a substring, 0 when the field does not contain the term
+    private static int fieldScore(String field, String term, int weight) {
+        int position = field.indexOf(term);
+        if (position < 0) {
+            return 0;
+        }
+        return isWord(field, term) ? weight : weight / 2;
+    }
+
+    private static boolean isWord(String field, String term) {
+        for (int position = field.indexOf(term); position >= 0; position = field.indexOf(term, position + 1)) {
+            int end = position + term.length();
+            boolean startsWord = position == 0 || !Character.isLetterOrDigit(field.charAt(position - 1));
+            boolean endsWord = end == field.length() || !Character.isLetterOrDigit(field.charAt(end));
+            if (startsWord && endsWord) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addTrigrams(String field, int document) {
+        for (int i = 0; i + MIN_TRIGRAM_LENGTH <= field.length(); i++) {
+            trigrams.getOrCreate(trigram(field, i)).add(document);
+        }
+    }
+
+    private void addWords(String field, int document) {
+        for (String word : words(field)) {
+            words.computeIfAbsent(word, key -> new Postings()).add(document);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > bookIds.length) {
+            int length = Math.max(capacity, bookIds.length * 2);
+            bookIds = Arrays.copyOf(bookIds, length);
+            titles = Arrays.copyOf(titles, length);
+            authors = Arrays.copyOf(authors, length);
+            isbns = Arrays.copyOf(isbns, length);
+            descriptionHashes = Arrays.copyOf(descriptionHashes, length);
+        }
+    }
+
+    static String normalize(String text) {
+        return text != null ? text.toLowerCase(Locale.ROOT) : "";
+    }
+
+    // Runs of letters and digits, each distinct word once
+    static List<String> words(String text) {
+        Set<String> words = new LinkedHashSet<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(text.substring(start, i));
+                start = -1;
+            }
+        }
+        return new ArrayList<>(words);
+    }
+
+    private static long trigram(String text, int offset) {
+        return ((long) text.charAt(offset) << 32) | ((long) text.charAt(offset + 1) << 16) | text.charAt(offset + 2);
+    }
+
+    private static int[] intersect(int[] left, int[] right, int rightSize) {
+        int[] result = new int[Math.min(left.length, rightSize)];
+        int count = 0;
+        int j = 0;
+        for (int document : left) {
+            j = seek(right, j, rightSize, document);
+            if (j == rightSize) {
+                break;
+            }
+            if (right[j] == document) {
+                result[count++] = document;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    // First index at or after from whose document is >= target, galloping so short lists skip ahead fast
+    private static int seek(int[] documents, int from, int size, int target) {
+        int step = 1;
+        int low = from;
+        int high = from;
+        while (high < size && documents[high] < target) {
+            low = high + 1;
+            high += step;
+            step <<= 1;
+        }
+        high = Math.min(high, size);
+        int index = Arrays.binarySearch(documents, low, high, target);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private static int[] union(int[] left, int[] right) {
+        if (right.length == 0) {
+            return left;
+        }
+        if (left.length == 0) {
+            return right;
+        }
+        int[] result = new int[left.length + right.length];
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < left.length || j < right.length) {
+            int next;
+            if (j == right.length || (i < left.length && left[i] < right[j])) {
+                next = left[i++];
+            } else if (i == left.length || right[j] < left[i]) {
+                next = right[j++];
+            } else {
+                next = left[i++];
+                j++;
+            }
+            result[count++] = next;
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Trigram to postings, open addressing over primitive keys so indexing a field boxes nothing.
+     */
+    private static final class TrigramTable {
+
+        private long[] keys = new long[1024];
+        private Postings[] values = new Postings[1024];
+        private int size;
+
+        Postings get(long trigram) {
+            int mask = keys.length - 1;
+            for (int slot = slot(trigram, mask); values[slot] != null; slot = (slot + 1) & mask) {
+                if (keys[slot] == trigram) {
+                    return values[slot];
+                }
+            }
+            return null;
+        }
+
+        Postings getOrCreate(long trigram) {
+            int mask = keys.length - 1;
+            int slot = slot(trigram, mask);
+            for (; values[slot] != null; slot = (slot + 1) & mask) {
+                if (keys[slot] == trigram) {
+                    return values[slot];
+                }
+            }
+            Postings postings = new Postings();
+            keys[slot] = trigram;
+            values[slot] = postings;
+            if (++size * 2 > keys.length) {
+                resize();
+            }
+            return postings;
+        }
+
+        void forEach(BiConsumer<Long, Postings> action) {
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (values[slot] != null) {
+                    action.accept(keys[slot], values[slot]);
+                }
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            Postings[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new Postings[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] != null) {
+                    int slot = slot(oldKeys[i], mask);
+                    while (values[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+
+        private static int slot(long trigram, int mask) {
+            long mixed = trigram * 0x9E3779B97F4A7C15L;
+            return (int) (mixed >>> 40) & mask;
+        }
+    }
+
+    /**
+     * Sorted document numbers; documents are added in increasing order, so a repeat is always last.
+     */
+    private static final class Postings {
+
+        int[] documents = new int[2];
+        int size;
+
+        void add(int document) {
+            if (size > 0 && documents[size - 1] == document) {
+                return;
+            }
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+            }
+            documents[size++] = document;
+        }
+
+        void append(Postings other, int offset) {
+            if (size + other.size > documents.length) {
+                documents = Arrays.copyOf(documents, Math.max(size + other.size, documents.length * 2));
+            }
+            for (int i = 0; i < other.size; i++) {
+                documents[size++] = other.documents[i] + offset;
+            }
+        }
+
+        boolean contains(int document) {
+            return Arrays.binarySearch(documents, 0, size, document) >= 0;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.librarymanagement.service;
+
+/**
+ * A CUSTOM_CONDITION rule value after {@link ConditionCompiler} has parsed it.
+ * Implementations are immutable and safe to share between threads.
+ */
+@FunctionalInterface
+public interface CompiledCondition {
+
+    boolean matches(EvaluationContext context);
+}
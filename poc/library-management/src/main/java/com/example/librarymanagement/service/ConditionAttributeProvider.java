@@ -0,0 +1,57 @@
+package com.example.librarymanagement.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Attributes of the user that CUSTOM_CONDITION rules can refer to by bare name and that only the
+ * server knows, e.g. {@code active_rentals}. {@link EvaluationContext} asks for a value the first
+ * time a condition reads it, so decisions whose rules never mention one cost no query.
+ */
+@Component
+public class ConditionAttributeProvider {
+
+    public static final String ACTIVE_RENTALS = "active_rentals";
+
+    public static final Set<String> NAMES = Set.of(ACTIVE_RENTALS);
+
+    @Autowired
+    private BookRentalService bookRentalService;
+
+    /**
+     * The value of a server-side attribute for the user, null for names this provider does not know.
+     */
+    public Object resolve(String userId, String name) {
+        if (ACTIVE_RENTALS.equals(name)) {
+            return bookRentalService.countActiveRentalsByUser(userId);
+        }
+        return null;
+    }
+
+    /**
+     * The attributes of every user, loaded with one query per attribute, for evaluations over many
+     * users such as a policy simulation. Values are those of the moment the snapshot is taken.
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(bookRentalService.countActiveRentalsPerUser());
+    }
+
+    public static final class Snapshot {
+        private final Map<String, Long> activeRentals;
+
+        private Snapshot(Map<String, Long> activeRentals) {
+            this.activeRentals = activeRentals;
+        }
+
+        // Same values as ConditionAttributeProvider.resolve, without a query
+        public Object resolve(String userId, String name) {
+            if (ACTIVE_RENTALS.equals(name)) {
+                return activeRentals.getOrDefault(userId, 0L);
+            }
+            return null;
+        }
+    }
+}
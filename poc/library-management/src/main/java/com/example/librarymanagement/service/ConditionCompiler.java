@@ -0,0 +1,460 @@
+package com.example.librarymanagement.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles CUSTOM_CONDITION rule values into predicate trees that are evaluated against an
+ * {@link EvaluationContext}. Parsing happens once, when a rule is saved or the rule index is rebuilt.
+ *
+ * <pre>
+ * expression := and ( "or" and )*
+ * and        := unary ( "and" unary )*
+ * unary      := "not" unary | "(" expression ")" | comparison
+ * comparison := operand ( op literal | [ "not" ] "in" "(" literal ( "," literal )* ")" )
+ * op         := "=" | "==" | "!=" | "&lt;" | "&lt;=" | "&gt;" | "&gt;="
+ * operand    := user_id | username | role | claim.&lt;path&gt; | &lt;attribute&gt;
+ * </pre>
+ *
+ * Literals are numbers, quoted strings or bare words, so the original form {@code user_id=2} still
+ * parses. Bare attribute names are resolved through {@link EvaluationContext#getAttribute}
+ * (server-side attributes such as {@code active_rentals}, then the caller's context map) and then
+ * the JWT claims, e.g. {@code role in (Student, Teacher) and active_rentals < 3}.
+ */
+public final class ConditionCompiler {
+
+    private ConditionCompiler() {
+    }
+
+    public static CompiledCondition compile(String expression) {
+        if (expression == null || expression.isBlank()) {
+            throw new InvalidConditionException("Condition is empty", String.valueOf(expression), 0);
+        }
+        Parser parser = new Parser(expression);
+        CompiledCondition condition = parser.parseExpression();
+        parser.expectEnd();
+        return condition;
+    }
+
+    // Tokenizer
+
+    private enum TokenType {
+        WORD, STRING, OPERATOR, LPAREN, RPAREN, COMMA, END
+    }
+
+    private static final class Token {
+        final TokenType type;
+        final String text;
+        final int position;
+
+        Token(TokenType type, String text, int position) {
+            this.type = type;
+            this.text = text;
+            this.position = position;
+        }
+
+        boolean isKeyword(String keyword) {
+            return type == TokenType.WORD && text.equalsIgnoreCase(keyword);
+        }
+    }
+
+    private static List<Token> tokenize(String expression) {
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        int length = expression.length();
+        while (i < length) {
+            char c = expression.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '(') {
+                tokens.add(new Token(TokenType.LPAREN, "(", i++));
+            } else if (c == ')') {
+                tokens.add(new Token(TokenType.RPAREN, ")", i++));
+            } else if (c == ',') {
+                tokens.add(new Token(TokenType.COMMA, ",", i++));
+            } else if (c == '=' || c == '!' || c == '<' || c == '>') {
+                int start = i++;
+                if (i < length && expression.charAt(i) == '=') {
+                    i++;
+                }
+                String operator = expression.substring(start, i);
+                if (operator.equals("!")) {
+                    throw new InvalidConditionException("Expected '!='", expression, start);
+                }
+                tokens.add(new Token(TokenType.OPERATOR, operator, start));
+            } else if (c == '\'' || c == '"') {
+                int start = i++;
+                int end = expression.indexOf(c, i);
+                if (end < 0) {
+                    throw new InvalidConditionException("Unterminated string", expression, start);
+                }
+                tokens.add(new Token(TokenType.STRING, expression.substring(i, end), start));
+                i = end + 1;
+            } else if (isWordChar(c)) {
+                int start = i;
+                while (i < length && isWordChar(expression.charAt(i))) {
+                    i++;
+                }
+                tokens.add(new Token(TokenType.WORD, expression.substring(start, i), start));
+            } else {
+                throw new InvalidConditionException("Unexpected character '" + c + "'", expression, i);
+            }
+        }
+        tokens.add(new Token(TokenType.END, "", length));
+        return tokens;
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '.' || c == '-' || c == ':' || c == '@';
+    }
+
+    // Parser
+
+    private static final class Parser {
+        private final String expression;
+        private final List<Token> tokens;
+        private int index;
+
+        Parser(String expression) {
+            this.expression = expression;
+            this.tokens = tokenize(expression);
+        }
+
+        CompiledCondition parseExpression() {
+            List<CompiledCondition> operands = new ArrayList<>();
+            operands.add(parseAnd());
+            while (peek().isKeyword("or")) {
+                index++;
+                operands.add(parseAnd());
+            }
+            if (operands.size() == 1) {
+                return operands.get(0);
+            }
+            CompiledCondition[] any = operands.toArray(new CompiledCondition[0]);
+            return context -> {
+                for (CompiledCondition condition : any) {
+                    if (condition.matches(context)) {
+                        return true;
+                    }
+                }
+                return false;
+            };
+        }
+
+        private CompiledCondition parseAnd() {
+            List<CompiledCondition> operands = new ArrayList<>();
+            operands.add(parseUnary());
+            while (peek().isKeyword("and")) {
+                index++;
+                operands.add(parseUnary());
+            }
+            if (operands.size() == 1) {
+                return operands.get(0);
+            }
+            CompiledCondition[] all = operands.toArray(new CompiledCondition[0]);
+            return context -> {
+                for (CompiledCondition condition : all) {
+                    if (!condition.matches(context)) {
+                        return false;
+                    }
+                }
+                return true;
+            };
+        }
+
+        private CompiledCondition parseUnary() {
+            Token token = peek();
+            if (token.isKeyword("not")) {
+                index++;
+                CompiledCondition negated = parseUnary();
+                return context -> !negated.matches(context);
+            }
+            if (token.type == TokenType.LPAREN) {
+                index++;
+                CompiledCondition inner = parseExpression();
+                expect(TokenType.RPAREN, "')'");
+                return inner;
+            }
+            return parseComparison();
+        }
+
+        private CompiledCondition parseComparison() {
+            Token name = expect(TokenType.WORD, "attribute name");
+            if (!isIdentifier(name.text) || isReserved(name.text)) {
+                throw error("Invalid attribute name '" + name.text + "'", name);
+            }
+
+            boolean negated = false;
+            if (peek().isKeyword("not")) {
+                index++;
+                negated = true;
+                if (!peek().isKeyword("in")) {
+                    throw error("Expected 'in' after 'not'", peek());
+                }
+            }
+
+            if (peek().isKeyword("in")) {
+                index++;
+                Literal[] values = parseLiteralList();
+                return membership(name, values, negated);
+            }
+
+            Token operatorToken = expect(TokenType.OPERATOR, "comparison operator");
+            Operator operator = Operator.fromSymbol(operatorToken.text);
+            Literal value = parseLiteral();
+            return comparison(name, operator, value, operatorToken);
+        }
+
+        private Literal[] parseLiteralList() {
+            expect(TokenType.LPAREN, "'('");
+            List<Literal> values = new ArrayList<>();
+            values.add(parseLiteral());
+            while (peek().type == TokenType.COMMA) {
+                index++;
+                values.add(parseLiteral());
+            }
+            expect(TokenType.RPAREN, "')'");
+            return values.toArray(new Literal[0]);
+        }
+
+        private Literal parseLiteral() {
+            Token token = peek();
+            if (token.type == TokenType.STRING) {
+                index++;
+                return new Literal(token.text, false);
+            }
+            if (token.type == TokenType.WORD && !isReserved(token.text)) {
+                index++;
+                return new Literal(token.text, true);
+            }
+            throw error("Expected a value", token);
+        }
+
+        private CompiledCondition comparison(Token name, Operator operator, Literal value, Token operatorToken) {
+            if (isRoleOperand(name.text)) {
+                if (operator == Operator.EQ) {
+                    return context -> context.hasRole(value.text);
+                }
+                if (operator == Operator.NE) {
+                    return context -> !context.hasRole(value.text);
+                }
+                throw error("Roles only support =, !=, in and not in", operatorToken);
+            }
+            Operand operand = operand(name.text);
+            return context -> Comparisons.matches(operand.resolve(context), operator, value);
+        }
+
+        private CompiledCondition membership(Token name, Literal[] values, boolean negated) {
+            if (isRoleOperand(name.text)) {
+                return context -> {
+                    for (Literal value : values) {
+                        if (context.hasRole(value.text)) {
+                            return !negated;
+                        }
+                    }
+                    return negated;
+                };
+            }
+            Operand operand = operand(name.text);
+            return context -> {
+                Object resolved = operand.resolve(context);
+                for (Literal value : values) {
+                    if (Comparisons.matches(resolved, Operator.EQ, value)) {
+                        return !negated;
+                    }
+                }
+                return negated;
+            };
+        }
+
+        void expectEnd() {
+            if (peek().type != TokenType.END) {
+                throw error("Unexpected '" + peek().text + "'", peek());
+            }
+        }
+
+        private Token peek() {
+            return tokens.get(index);
+        }
+
+        private Token expect(TokenType type, String description) {
+            Token token = peek();
+            if (token.type != type) {
+                throw error("Expected " + description, token);
+            }
+            index++;
+            return token;
+        }
+
+        private InvalidConditionException error(String message, Token token) {
+            return new InvalidConditionException(message, expression, token.position);
+        }
+    }
+
+    private static boolean isIdentifier(String text) {
+        if (!Character.isLetter(text.charAt(0)) && text.charAt(0) != '_') {
+            return false;
+        }
+        for (int i = 1; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '_' && c != '.') {
+                return false;
+            }
+        }
+        return !text.endsWith(".");
+    }
+
+    private static boolean isReserved(String text) {
+        return text.equalsIgnoreCase("and") || text.equalsIgnoreCase("or")
+                || text.equalsIgnoreCase("not") || text.equalsIgnoreCase("in");
+    }
+
+    private static boolean isRoleOperand(String name) {
+        return name.equals("role") || name.equals("roles");
+    }
+
+    // Operands are resolved to accessors at compile time
+
+    private interface Operand {
+        Object resolve(EvaluationContext context);
+    }
+
+    private static Operand operand(String name) {
+        switch (name) {
+            case "user_id":
+                return EvaluationContext::getUserId;
+            case "username":
+                return EvaluationContext::getUsername;
+            default:
+                break;
+        }
+        if (name.startsWith("claim.")) {
+            String[] path = name.substring("claim.".length()).split("\\.");
+            return context -> resolvePath(context.getClaims(), path);
+        }
+        return context -> {
+            Object value = context.getAttribute(name);
+            return value != null ? value : context.getClaims().get(name);
+        };
+    }
+
+    private static Object resolvePath(Map<String, Object> root, String[] path) {
+        Object current = root;
+        for (String segment : path) {
+            if (!(current instanceof Map<?, ?> map)) {
+                return null;
+            }
+            current = map.get(segment);
+        }
+        return current;
+    }
+
+    // Comparisons
+
+    private enum Operator {
+        EQ, NE, LT, LE, GT, GE;
+
+        static Operator fromSymbol(String symbol) {
+            switch (symbol) {
+                case "=":
+                case "==":
+                    return EQ;
+                case "!=":
+                    return NE;
+                case "<":
+                    return LT;
+                case "<=":
+                    return LE;
+                case ">":
+                    return GT;
+                default:
+                    return GE;
+            }
+        }
+
+        boolean test(int comparison) {
+            switch (this) {
+                case EQ:
+                    return comparison == 0;
+                case NE:
+                    return comparison != 0;
+                case LT:
+                    return comparison < 0;
+                case LE:
+                    return comparison <= 0;
+                case GT:
+                    return comparison > 0;
+                default:
+                    return comparison >= 0;
+            }
+        }
+    }
+
+    private static final class Literal {
+        final String text;
+        final boolean numeric;
+        final double number;
+
+        Literal(String text, boolean bare) {
+            this.text = text;
+            this.numeric = bare && Comparisons.isNumber(text);
+            this.number = numeric ? Double.parseDouble(text) : Double.NaN;
+        }
+    }
+
+    private static final class Comparisons {
+
+        static boolean matches(Object value, Operator operator, Literal literal) {
+            if (value instanceof Collection<?> values) {
+                // Multi-valued claims match when any element does
+                for (Object element : values) {
+                    if (matchesSingle(element, operator, literal)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            return matchesSingle(value, operator, literal);
+        }
+
+        private static boolean matchesSingle(Object value, Operator operator, Literal literal) {
+            if (value == null) {
+                // Missing attributes only satisfy "!="
+                return operator == Operator.NE;
+            }
+            if (literal.numeric) {
+                if (value instanceof Number number) {
+                    return operator.test(Double.compare(number.doubleValue(), literal.number));
+                }
+                if (value instanceof String text && isNumber(text)) {
+                    return operator.test(Double.compare(Double.parseDouble(text), literal.number));
+                }
+            }
+            return operator.test(String.valueOf(value).compareTo(literal.text));
+        }
+
+        // Plain decimal check so non-numeric strings never go through a NumberFormatException
+        static boolean isNumber(String text) {
+            int length = text.length();
+            int i = 0;
+            if (length > 0 && (text.charAt(0) == '-' || text.charAt(0) == '+')) {
+                i++;
+            }
+            boolean digits = false;
+            boolean dot = false;
+            for (; i < length; i++) {
+                char c = text.charAt(i);
+                if (c >= '0' && c <= '9') {
+                    digits = true;
+                } else if (c == '.' && !dot) {
+                    dot = true;
+                } else {
+                    return false;
+                }
+            }
+            return digits;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.librarymanagement.service;
+
+import com.example.librarymanagement.entity.CustomPermission;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sampled log of authorization decisions.
+ *
+ * Request threads only build a {@link DecisionRecord} and offer it to a lock-free ring buffer; a
+ * background thread writes the records to the "authorization.decisions" logger. Every deny is
+ * recorded and allows are sampled. When the buffer is full records are dropped and counted rather
+ * than slowing the request down. Every decision is also handed to the {@link AuditTrail}. With both
+ * disabled, the only cost per decision is one boolean read.
+ */
+@Component
+public class DecisionLogger {
+
+    private static final Logger decisionLog = LoggerFactory.getLogger("authorization.decisions");
+
+    @Value("${library.decision-log.enabled:true}")
+    private boolean enabled;
+
+    @Value("${library.decision-log.allow-sample-percent:1}")
+    private int allowSamplePercent;
+
+    @Value("${library.decision-log.buffer-size:8192}")
+    private int bufferSize;
+
+    @Autowired
+    private AuditTrail auditTrail;
+
+    // Decisions are recorded when they go to the log, the audit trail or both
+    private boolean active;
+
+    private MpscRingBuffer<DecisionRecord> buffer;
+    private Thread writerThread;
+    private volatile boolean running;
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    @PostConstruct
+    public void start() {
+        active = enabled || auditTrail.isEnabled();
+        if (!enabled) {
+            return;
+        }
+        buffer = new MpscRingBuffer<>(bufferSize);
+        running = true;
+        writerThread = new Thread(this::drain, "decision-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writerThread != null) {
+            running = false;
+            LockSupport.unpark(writerThread);
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    public boolean isEnabled() {
+        return active;
+    }
+
+    public void record(EvaluationContext context, CustomPermission.ResourceType resourceType, Long resourceId,
+                       CustomPermission.PermissionAction action, boolean allowed, String decidedBy, Long ruleId,
+                       long startNanos) {
+        if (!active) {
+            return;
+        }
+        boolean logged = enabled && (!allowed || sampleAllow());
+        if (!logged && !auditTrail.isEnabled()) {
+            return;
+        }
+        DecisionRecord record = new DecisionRecord(System.currentTimeMillis(), context.getUserId(), resourceType,
+                resourceId, action, allowed, decidedBy, ruleId, System.nanoTime() - startNanos);
+        auditTrail.recordDecision(record);
+        if (logged && !buffer.offer(record)) {
+            dropped.increment();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("allowSamplePercent", allowSamplePercent);
+        stats.put("written", written.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("pending", buffer != null ? buffer.size() : 0);
+        return stats;
+    }
+
+    private boolean sampleAllow() {
+        return allowSamplePercent >= 100
+                || (allowSamplePercent > 0 && ThreadLocalRandom.current().nextInt(100) < allowSamplePercent);
+    }
+
+    private void drain() {
+        while (true) {
+            DecisionRecord record = buffer.poll();
+            if (record != null) {
+                decisionLog.info(record.toLogLine());
+                written.increment();
+            } else if (running) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            } else {
+                return; // stopped and drained
+            }
+        }
+    }
+}
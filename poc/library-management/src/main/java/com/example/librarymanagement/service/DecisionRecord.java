@@ -0,0 +1,80 @@
+package com.example.librarymanagement.service;
+
+import com.example.librarymanagement.entity.CustomPermission;
+
+/**
+ * One authorization decision as written to the decision log.
+ */
+public class DecisionRecord {
+
+    private final long timestampMillis;
+    private final String userId;
+    private final CustomPermission.ResourceType resourceType;
+    private final Long resourceId;
+    private final CustomPermission.PermissionAction action;
+    private final boolean allowed;
+    private final String decidedBy;
+    private final Long ruleId;
+    private final long latencyNanos;
+
+    public DecisionRecord(long timestampMillis, String userId, CustomPermission.ResourceType resourceType,
+                          Long resourceId, CustomPermission.PermissionAction action, boolean allowed,
+                          String decidedBy, Long ruleId, long latencyNanos) {
+        this.timestampMillis = timestampMillis;
+        this.userId = userId;
+        this.resourceType = resourceType;
+        this.resourceId = resourceId;
+        this.action = action;
+        this.allowed = allowed;
+        this.decidedBy = decidedBy;
+        this.ruleId = ruleId;
+        this.latencyNanos = latencyNanos;
+    }
+
+    // Compact key=value line, one per decision
+    public String toLogLine() {
+        return "ts=" + timestampMillis
+                + " user=" + userId
+                + " resource=" + resourceType + ":" + resourceId
+                + " action=" + action
+                + " outcome=" + (allowed ? "ALLOW" : "DENY")
+                + " decidedBy=" + decidedBy + (ruleId != null ? ":" + ruleId : "")
+                + " latencyUs=" + (latencyNanos / 1000);
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public CustomPermission.ResourceType getResourceType() {
+        return resourceType;
+    }
+
+    public Long getResourceId() {
+        return resourceId;
+    }
+
+    public CustomPermission.PermissionAction getAction() {
+        return action;
+    }
+
+    public boolean isAllowed() {
+        return allowed;
+    }
+
+    public String getDecidedBy() {
+        return decidedBy;
+    }
+
+    public Long getRuleId() {
+        return ruleId;
+    }
+
+    public long getLatencyNanos() {
+        return latencyNanos;
+    }
+}
@@ -0,0 +1,284 @@
+package com.example.librarymanagement.service;
+
+import com.example.librarymanagement.entity.CustomPermission;
+import com.example.librarymanagement.entity.CustomPermissionRule;
+import com.example.librarymanagement.repository.CustomPermissionRuleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * In-memory index of DENY rules keyed by (resourceType, resourceId).
+ *
+ * Most resources have no rules, so {@link #rulesFor} answers with null from a single map lookup.
+ * Rules that do exist are bucketed by condition type, which turns USER_ID, USERNAME and USER_ROLE
+ * rules into hash lookups. CUSTOM_CONDITION rules are compiled once per rule id and only
+ * recompiled when their condition value changes. The index is rebuilt after rule changes commit.
+ *
+ * Listings filter USER_ID, USERNAME and USER_ROLE rules inside their own query. Only CUSTOM_CONDITION
+ * rules need Java to decide, so those are also kept per resource type ({@link #conditionDeniedResourceIds})
+ * and a listing binds just the ids they deny.
+ */
+@Component
+public class DenyRuleIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(DenyRuleIndex.class);
+
+    @Autowired
+    private CustomPermissionRuleRepository customPermissionRuleRepository;
+
+    private volatile Snapshot index;
+
+    // Compiled CUSTOM_CONDITION values by rule id, reused across rebuilds
+    private final Map<Long, CompiledRuleCondition> compiledConditions = new ConcurrentHashMap<>();
+
+    public ResourceRules rulesFor(CustomPermission.ResourceType resourceType, Long resourceId) {
+        return snapshot().rulesFor(resourceType, resourceId);
+    }
+
+    /**
+     * Ids of the resources of one type that a CUSTOM_CONDITION DENY rule takes away from the caller.
+     * DENY rules on user id, username or role are not included, a query can match those itself.
+     */
+    public Set<Long> conditionDeniedResourceIds(CustomPermission.ResourceType resourceType, EvaluationContext context) {
+        return snapshot().conditionDeniedResourceIds(resourceType, context);
+    }
+
+    /**
+     * Builds a detached snapshot over an arbitrary set of DENY rules, for example a proposed policy.
+     * Nothing is shared with the live index. Rules with invalid conditions are skipped.
+     */
+    public static Snapshot snapshotOf(Collection<CustomPermissionRule> denyRules) {
+        return Snapshot.build(denyRules, rule -> {
+            try {
+                return ConditionCompiler.compile(rule.getConditionValue());
+            } catch (InvalidConditionException e) {
+                return null;
+            }
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onPolicyChanged(PolicyChangedEvent event) {
+        if (event.affectsRules()) {
+            rebuild();
+        }
+    }
+
+    public synchronized void rebuild() {
+        index = build(customPermissionRuleRepository.findByEffect(CustomPermissionRule.RuleEffect.DENY));
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = index;
+        return current != null ? current : initialize();
+    }
+
+    private synchronized Snapshot initialize() {
+        if (index == null) {
+            rebuild();
+        }
+        return index;
+    }
+
+    private Snapshot build(Collection<CustomPermissionRule> denyRules) {
+        Map<Long, CompiledRuleCondition> liveConditions = new HashMap<>();
+        Snapshot built = Snapshot.build(denyRules, rule -> {
+            CompiledRuleCondition compiled = compile(rule);
+            if (compiled == null) {
+                return null;
+            }
+            liveConditions.put(rule.getId(), compiled);
+            return compiled.condition;
+        });
+        compiledConditions.keySet().retainAll(liveConditions.keySet());
+        compiledConditions.putAll(liveConditions);
+        return built;
+    }
+
+    private CompiledRuleCondition compile(CustomPermissionRule rule) {
+        CompiledRuleCondition cached = compiledConditions.get(rule.getId());
+        if (cached != null && Objects.equals(cached.source, rule.getConditionValue())) {
+            return cached;
+        }
+        try {
+            return new CompiledRuleCondition(rule.getConditionValue(), ConditionCompiler.compile(rule.getConditionValue()));
+        } catch (InvalidConditionException e) {
+            // Rules stored before validation existed can be invalid, they never match
+            log.warn("Ignoring deny rule {}: {}", rule.getId(), e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Immutable set of compiled DENY rules, by resource and inverted per resource type.
+     */
+    public static final class Snapshot {
+
+        private final Map<CustomPermission.ResourceType, Map<Long, ResourceRules>> rules = new EnumMap<>(CustomPermission.ResourceType.class);
+        private final Map<CustomPermission.ResourceType, DeniedResources> denied = new EnumMap<>(CustomPermission.ResourceType.class);
+
+        private Snapshot() {
+        }
+
+        // The compiler is only called for CUSTOM_CONDITION rules, a null result drops the rule
+        private static Snapshot build(Collection<CustomPermissionRule> denyRules,
+                                      Function<CustomPermissionRule, CompiledCondition> compiler) {
+            Snapshot built = new Snapshot();
+            for (CustomPermissionRule rule : denyRules) {
+                if (rule.getResourceType() == null || rule.getResourceId() == null || rule.getConditionType() == null) {
+                    continue;
+                }
+                CompiledCondition condition = null;
+                if (rule.getConditionType() == CustomPermissionRule.ConditionType.CUSTOM_CONDITION) {
+                    condition = compiler.apply(rule);
+                    if (condition == null) {
+                        continue;
+                    }
+                }
+                built.rules.computeIfAbsent(rule.getResourceType(), type -> new HashMap<>())
+                        .computeIfAbsent(rule.getResourceId(), id -> new ResourceRules())
+                        .add(rule, condition);
+                if (condition != null) {
+                    built.denied.computeIfAbsent(rule.getResourceType(), type -> new DeniedResources())
+                            .add(rule.getResourceId(), condition);
+                }
+            }
+            return built;
+        }
+
+        public ResourceRules rulesFor(CustomPermission.ResourceType resourceType, Long resourceId) {
+            Map<Long, ResourceRules> byResourceId = rules.get(resourceType);
+            return byResourceId != null ? byResourceId.get(resourceId) : null;
+        }
+
+        public Set<Long> conditionDeniedResourceIds(CustomPermission.ResourceType resourceType, EvaluationContext context) {
+            DeniedResources deniedResources = denied.get(resourceType);
+            return deniedResources != null ? deniedResources.resolve(context) : Collections.emptySet();
+        }
+    }
+
+    private static final class CompiledRuleCondition {
+        final String source;
+        final CompiledCondition condition;
+
+        CompiledRuleCondition(String source, CompiledCondition condition) {
+            this.source = source;
+            this.condition = condition;
+        }
+    }
+
+    /**
+     * DENY rules of a single resource, bucketed by condition type.
+     */
+    public static class ResourceRules {
+
+        private final Map<String, CustomPermissionRule> byUserId = new HashMap<>();
+        private final Map<String, CustomPermissionRule> byUsername = new HashMap<>();
+        private final Map<String, CustomPermissionRule> byRoleName = new HashMap<>();
+        private final List<CustomPermissionRule> customRules = new ArrayList<>();
+        private final List<CompiledCondition> customConditions = new ArrayList<>();
+
+        private void add(CustomPermissionRule rule, CompiledCondition condition) {
+            String value = rule.getConditionValue();
+            switch (rule.getConditionType()) {
+                case USER_ID:
+                    if (value != null) {
+                        byUserId.putIfAbsent(value, rule);
+                    }
+                    break;
+                case USERNAME:
+                    if (value != null) {
+                        byUsername.putIfAbsent(value, rule);
+                    }
+                    break;
+                case USER_ROLE:
+                    if (value != null) {
+                        byRoleName.putIfAbsent(value, rule);
+                    }
+                    break;
+                case CUSTOM_CONDITION:
+                    customRules.add(rule);
+                    customConditions.add(condition);
+                    break;
+            }
+        }
+
+        /**
+         * The first rule that applies to the caller: user id, then username, then role, then custom conditions.
+         */
+        public CustomPermissionRule findMatchingRule(EvaluationContext context) {
+            CustomPermissionRule rule = byUserId.get(context.getUserId());
+            if (rule == null && context.getUsername() != null) {
+                rule = byUsername.get(context.getUsername());
+            }
+            if (rule == null && !byRoleName.isEmpty()) {
+                for (String roleName : context.getRoleNames()) {
+                    rule = byRoleName.get(roleName);
+                    if (rule != null) {
+                        break;
+                    }
+                }
+            }
+            return rule != null ? rule : findCustomRule(context);
+        }
+
+        private CustomPermissionRule findCustomRule(EvaluationContext context) {
+            for (int i = 0; i < customConditions.size(); i++) {
+                if (customConditions.get(i).matches(context)) {
+                    return customRules.get(i);
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * CUSTOM_CONDITION DENY rules of one resource type, as (resource id, condition) pairs.
+     */
+    private static final class DeniedResources {
+
+        private final List<Long> resourceIds = new ArrayList<>();
+        private final List<CompiledCondition> conditions = new ArrayList<>();
+
+        private void add(Long resourceId, CompiledCondition condition) {
+            resourceIds.add(resourceId);
+            conditions.add(condition);
+        }
+
+        private Set<Long> resolve(EvaluationContext context) {
+            Set<Long> denied = new HashSet<>();
+            for (int i = 0; i < conditions.size(); i++) {
+                if (!denied.contains(resourceIds.get(i)) && conditions.get(i).matches(context)) {
+                    denied.add(resourceIds.get(i));
+                }
+            }
+            return denied;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.librarymanagement.service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Everything a permission decision needs to know about the caller, resolved once per decision
+ * (or once per batch) by {@link RolePermissionService#createEvaluationContext} and handed to
+ * every condition evaluator, so rules never go back to the database for the same user.
+ */
+public class EvaluationContext {
+
+    private final String userId;
+    private final String username;
+    private final Set<Long> roleIds;
+    private final Set<String> roleNames;
+    private final Map<String, Object> claims;
+    private final Map<String, Object> attributes;
+    private final long permissionMask;
+    // Server-side attributes by name, null when the context has none (e.g. in the policy simulator)
+    private final Function<String, Object> serverAttributes;
+    // Server-side values already resolved, a context serves one request or batch on one thread
+    private Map<String, Object> resolvedServerAttributes;
+
+    public EvaluationContext(String userId, String username, Set<Long> roleIds, Set<String> roleNames,
+                             Map<String, Object> claims, Map<String, Object> attributes, long permissionMask) {
+        this(userId, username, roleIds, roleNames, claims, attributes, permissionMask, null);
+    }
+
+    public EvaluationContext(String userId, String username, Set<Long> roleIds, Set<String> roleNames,
+                             Map<String, Object> claims, Map<String, Object> attributes, long permissionMask,
+                             Function<String, Object> serverAttributes) {
+        this.userId = userId;
+        this.username = username;
+        this.roleIds = Collections.unmodifiableSet(roleIds);
+        this.roleNames = Collections.unmodifiableSet(roleNames);
+        this.claims = claims != null ? claims : Collections.emptyMap();
+        this.attributes = attributes != null ? attributes : Collections.emptyMap();
+        this.permissionMask = permissionMask;
+        this.serverAttributes = serverAttributes;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    // Null when the decision is not made on behalf of an authenticated request
+    public String getUsername() {
+        return username;
+    }
+
+    public Set<Long> getRoleIds() {
+        return roleIds;
+    }
+
+    public Set<String> getRoleNames() {
+        return roleNames;
+    }
+
+    public boolean hasRole(String roleName) {
+        return roleNames.contains(roleName);
+    }
+
+    // JWT claims of the current request, empty when there is no token
+    public Map<String, Object> getClaims() {
+        return claims;
+    }
+
+    // Caller supplied context, e.g. the "context" map of a permission-check request
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    /**
+     * A named attribute for conditions: the server-side value when the server provides one (see
+     * {@link ConditionAttributeProvider}), so callers cannot override it, else the caller supplied one.
+     */
+    public Object getAttribute(String name) {
+        if (serverAttributes != null && ConditionAttributeProvider.NAMES.contains(name)) {
+            if (resolvedServerAttributes == null) {
+                resolvedServerAttributes = new HashMap<>();
+            }
+            if (!resolvedServerAttributes.containsKey(name)) {
+                resolvedServerAttributes.put(name, serverAttributes.apply(name));
+            }
+            return resolvedServerAttributes.get(name);
+        }
+        return attributes.get(name);
+    }
+
+    public long getPermissionMask() {
+        return permissionMask;
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.librarymanagement.service;
+
+import com.example.librarymanagement.repository.UserCustomRoleArchiveRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves expired role assignments from user_custom_roles into user_custom_roles_archive.
+ *
+ * Each run archives at most maxChunksPerRun chunks. Every chunk is a short transaction that copies
+ * and deletes a bounded set of rows by primary key, and chunks are separated by a pause, so the
+ * sweeper never holds locks on many live rows at once. Effective permissions are unaffected: the
+ * rows were already ignored by findActiveRolesByUserId and cached entries expire on their own.
+ */
+@Service
+public class ExpiredAssignmentSweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpiredAssignmentSweeper.class);
+
+    @Autowired
+    private UserCustomRoleArchiveRepository archiveRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${library.assignment-sweeper.enabled:true}")
+    private boolean enabled;
+
+    @Value("${library.assignment-sweeper.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${library.assignment-sweeper.max-chunks-per-run:20}")
+    private int maxChunksPerRun;
+
+    @Value("${library.assignment-sweeper.pause-between-chunks-ms:50}")
+    private long pauseBetweenChunksMillis;
+
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong archived = new AtomicLong();
+    private final AtomicLong failedRuns = new AtomicLong();
+    private volatile long lastRunArchived;
+    private volatile long lastRunMillis;
+    private volatile LocalDateTime lastRunAt;
+
+    @Scheduled(initialDelayString = "${library.assignment-sweeper.interval-ms:60000}",
+               fixedDelayString = "${library.assignment-sweeper.interval-ms:60000}")
+    public void sweep() {
+        if (!enabled) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        long archivedThisRun = 0;
+        try {
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+                int moved = transaction.execute(status -> archiveChunk(LocalDateTime.now()));
+                archivedThisRun += moved;
+                if (moved < chunkSize) {
+                    break;
+                }
+                Thread.sleep(pauseBetweenChunksMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            failedRuns.incrementAndGet();
+            log.error("Archiving expired role assignments failed", e);
+        } finally {
+            runs.incrementAndGet();
+            archived.addAndGet(archivedThisRun);
+            lastRunArchived = archivedThisRun;
+            lastRunMillis = System.currentTimeMillis() - started;
+            lastRunAt = LocalDateTime.now();
+        }
+        if (archivedThisRun > 0) {
+            log.info("Archived {} expired role assignments in {} ms", archivedThisRun, lastRunMillis);
+        }
+    }
+
+    private int archiveChunk(LocalDateTime now) {
+        List<Long> ids = archiveRepository.findExpiredAssignmentIds(now, chunkSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        archiveRepository.copyToArchive(ids, now);
+        return archiveRepository.deleteAssignments(ids);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("runs", runs.get());
+        stats.put("failedRuns", failedRuns.get());
+        stats.put("archived", archived.get());
+        stats.put("lastRunArchived", lastRunArchived);
+        stats.put("lastRunMillis", lastRunMillis);
+        stats.put("lastRunAt", lastRunAt);
+        return stats;
+    }
+}
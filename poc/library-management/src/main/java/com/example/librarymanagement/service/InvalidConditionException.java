@@ -0,0 +1,20 @@
+package com.example.librarymanagement.service;
+
+/**
+ * Thrown when a CUSTOM_CONDITION rule value is not a valid condition expression.
+ */
+public class InvalidConditionException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int position;
+
+    public InvalidConditionException(String message, String expression, int position) {
+        super(message + " at position " + position + " in '" + expression + "'");
+        this.position = position;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.librarymanagement.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Minimal perfect hash over a fixed list of names, answering the position of a name in that list.
+ *
+ * Two levels (hash and displace): the 64-bit hash of a name picks a bucket, and every bucket has its
+ * own seed spreading its few names over a private slot range without collisions. A lookup hashes
+ * the name once, reads one bucket and one slot, and confirms with a single compare, so unknown
+ * names cost the same as known ones and never throw. With ignoreCase, characters are folded one by
+ * one with {@link #fold(char)} while hashing and comparing, instead of upper-casing a copy of the
+ * name; callers deduplicating names use {@link #fold(String)} so both sides agree. Should no
+ * collision-free layout turn up within a bounded number of seeds, the index falls back to a
+ * HashMap.
+ */
+final class PerfectHashIndex {
+
+    private static final int MAX_BUCKET_SEEDS = 1_000;
+
+    private static final int MAX_ATTEMPTS = 16;
+
+    private final int size;
+    private final boolean ignoreCase;
+    private final long seed;
+    private final int bucketMask;
+    private final int[] bucketOffsets;
+    // Slot count of the bucket minus one, -1 for an empty bucket
+    private final int[] bucketSlotMasks;
+    private final long[] bucketSeeds;
+    private final String[] slotNames;
+    private final int[] slotIndexes;
+    // Set instead of the tables when no perfect layout was found, keyed by the folded name with ignoreCase
+    private final Map<String, Integer> fallback;
+
+    private PerfectHashIndex(int size, boolean ignoreCase, long seed, int bucketMask, int[] bucketOffsets, int[] bucketSlotMasks,
+                             long[] bucketSeeds, String[] slotNames, int[] slotIndexes) {
+        this.size = size;
+        this.ignoreCase = ignoreCase;
+        this.seed = seed;
+        this.bucketMask = bucketMask;
+        this.bucketOffsets = bucketOffsets;
+        this.bucketSlotMasks = bucketSlotMasks;
+        this.bucketSeeds = bucketSeeds;
+        this.slotNames = slotNames;
+        this.slotIndexes = slotIndexes;
+        this.fallback = null;
+    }
+
+    private PerfectHashIndex(Map<String, Integer> fallback, boolean ignoreCase) {
+        this.size = fallback.size();
+        this.ignoreCase = ignoreCase;
+        this.seed = 0L;
+        this.bucketMask = 0;
+        this.bucketOffsets = null;
+        this.bucketSlotMasks = null;
+        this.bucketSeeds = null;
+        this.slotNames = null;
+        this.slotIndexes = null;
+        this.fallback = fallback;
+    }
+
+    /**
+     * Builds the index of distinct names; with ignoreCase the names must also differ after case folding.
+     */
+    static PerfectHashIndex build(List<String> names, boolean ignoreCase) {
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            // A fresh seed per attempt, so no fixed set of names can keep colliding
+            PerfectHashIndex index = tryBuild(names, ignoreCase, ThreadLocalRandom.current().nextLong());
+            if (index != null) {
+                return index;
+            }
+        }
+        Map<String, Integer> fallback = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            fallback.putIfAbsent(ignoreCase ? fold(names.get(i)) : names.get(i), i);
+        }
+        return new PerfectHashIndex(fallback, ignoreCase);
+    }
+
+    /**
+     * The name as the index compares it with ignoreCase: every character upper-cased on its own,
+     * so the length never changes ("ß" stays "ß" where String.toUpperCase gives "SS").
+     */
+    static String fold(String name) {
+        char[] folded = new char[name.length()];
+        for (int i = 0; i < folded.length; i++) {
+            folded[i] = fold(name.charAt(i));
+        }
+        return new String(folded);
+    }
+
+    /**
+     * Position of the name in the list the index was built from, -1 when it is not there.
+     */
+    int indexOf(String name) {
+        if (name == null) {
+            return -1;
+        }
+        if (fallback != null) {
+            Integer index = fallback.get(ignoreCase ? fold(name) : name);
+            return index != null ? index : -1;
+        }
+        long hash = hash(name, seed, ignoreCase);
+        int bucket = (int) hash & bucketMask;
+        int slotMask = bucketSlotMasks[bucket];
+        if (slotMask < 0) {
+            return -1;
+        }
+        int slot = bucketOffsets[bucket] + ((int) mix(hash ^ bucketSeeds[bucket]) & slotMask);
+        String candidate = slotNames[slot];
+        if (candidate == null) {
+            return -1;
+        }
+        boolean matches = ignoreCase ? equalsFolded(candidate, name) : candidate.equals(name);
+        return matches ? slotIndexes[slot] : -1;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int slotCount() {
+        return fallback != null ? fallback.size() : slotNames.length;
+    }
+
+    private static PerfectHashIndex tryBuild(List<String> names, boolean ignoreCase, long seed) {
+        int bucketCount = Integer.highestOneBit(Math.max(1, names.size()) * 2 - 1);
+        int bucketMask = bucketCount - 1;
+
+        long[] hashes = new long[names.size()];
+        List<List<Integer>> buckets = new ArrayList<>(bucketCount);
+        for (int b = 0; b < bucketCount; b++) {
+            buckets.add(new ArrayList<>(2));
+        }
+        for (int i = 0; i < names.size(); i++) {
+            hashes[i] = hash(names.get(i), seed, ignoreCase);
+            buckets.get((int) hashes[i] & bucketMask).add(i);
+        }
+
+        int[] bucketOffsets = new int[bucketCount];
+        int[] bucketSlotMasks = new int[bucketCount];
+        long[] bucketSeeds = new long[bucketCount];
+        int slotCount = 0;
+        for (int b = 0; b < bucketCount; b++) {
+            int size = buckets.get(b).size();
+            // Quadratic space per bucket makes a collision-free seed quick to find
+            int slots = size == 0 ? 0 : Integer.highestOneBit(size * size * 2 - 1);
+            bucketOffsets[b] = slotCount;
+            bucketSlotMasks[b] = slots - 1;
+            slotCount += slots;
+        }
+
+        String[] slotNames = new String[slotCount];
+        int[] slotIndexes = new int[slotCount];
+        for (int b = 0; b < bucketCount; b++) {
+            List<Integer> members = buckets.get(b);
+            if (members.isEmpty()) {
+                continue;
+            }
+            long bucketSeed = findBucketSeed(members, hashes, bucketSlotMasks[b]);
+            if (bucketSeed == 0L) {
+                return null;
+            }
+            bucketSeeds[b] = bucketSeed;
+            for (int i : members) {
+                int slot = bucketOffsets[b] + ((int) mix(hashes[i] ^ bucketSeed) & bucketSlotMasks[b]);
+                slotNames[slot] = names.get(i);
+                slotIndexes[slot] = i;
+            }
+        }
+        return new PerfectHashIndex(names.size(), ignoreCase, seed, bucketMask, bucketOffsets, bucketSlotMasks, bucketSeeds,
+                slotNames, slotIndexes);
+    }
+
+    // A seed placing every member of the bucket in its own slot, 0 when none was found
+    private static long findBucketSeed(List<Integer> members, long[] hashes, int slotMask) {
+        boolean[] taken = new boolean[slotMask + 1];
+        for (long bucketSeed = 1; bucketSeed <= MAX_BUCKET_SEEDS; bucketSeed++) {
+            Arrays.fill(taken, false);
+            boolean collision = false;
+            for (int i : members) {
+                int slot = (int) mix(hashes[i] ^ (bucketSeed * 0x9E3779B97F4A7C15L)) & slotMask;
+                if (taken[slot]) {
+                    collision = true;
+                    break;
+                }
+                taken[slot] = true;
+            }
+            if (!collision) {
+                return bucketSeed * 0x9E3779B97F4A7C15L;
+            }
+        }
+        return 0L;
+    }
+
+    // FNV-1a over the (folded) characters, finished with a 64-bit mix
+    private static long hash(String name, long seed, boolean ignoreCase) {
+        long hash = 0xcbf29ce484222325L ^ seed;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            hash ^= ignoreCase ? fold(c) : c;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static char fold(char c) {
+        if (c < 128) {
+            return c >= 'a' && c <= 'z' ? (char) (c - 32) : c;
+        }
+        return Character.toUpperCase(c);
+    }
+
+    private static boolean equalsFolded(String candidate, String name) {
+        if (candidate.length() != name.length()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (fold(candidate.charAt(i)) != fold(name.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
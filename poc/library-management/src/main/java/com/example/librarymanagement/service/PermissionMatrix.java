@@ -0,0 +1,136 @@
+package com.example.librarymanagement.service;
+
+import com.example.librarymanagement.entity.CustomPermission;
+import com.example.librarymanagement.entity.CustomRole;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable, compiled view of every role's permissions.
+ *
+ * Each role is reduced to a bitmask with one bit per (ResourceType, PermissionAction) pair.
+ * A permission with action ALL sets every action bit of its resource type, so a check is
+ * an OR of the user's role masks followed by a single bit test.
+ *
+ * Role hierarchies are flattened here: a role's mask and permission names include everything
+ * inherited through its parent roles, so evaluation cost does not depend on hierarchy depth.
+ */
+public final class PermissionMatrix {
+
+    private static final int ACTION_COUNT = CustomPermission.PermissionAction.values().length;
+
+    static {
+        if (CustomPermission.ResourceType.values().length * ACTION_COUNT > Long.SIZE) {
+            throw new IllegalStateException("Permission matrix does not fit into a 64-bit mask");
+        }
+    }
+
+    public static final PermissionMatrix EMPTY = new PermissionMatrix(Collections.emptyMap(), Collections.emptyMap(),
+            Collections.emptyMap());
+
+    private final Map<Long, Long> masksByRoleId;
+    private final Map<String, Long> masksByRoleName;
+    private final Map<Long, Set<String>> permissionNamesByRoleId;
+
+    private PermissionMatrix(Map<Long, Long> masksByRoleId, Map<String, Long> masksByRoleName,
+                             Map<Long, Set<String>> permissionNamesByRoleId) {
+        this.masksByRoleId = masksByRoleId;
+        this.masksByRoleName = masksByRoleName;
+        this.permissionNamesByRoleId = permissionNamesByRoleId;
+    }
+
+    public static PermissionMatrix compile(Collection<CustomRole> roles) {
+        Map<Long, CustomRole> rolesById = new HashMap<>();
+        for (CustomRole role : roles) {
+            rolesById.put(role.getId(), role);
+        }
+
+        Map<Long, Long> byId = new HashMap<>();
+        Map<String, Long> byName = new HashMap<>();
+        Map<Long, Set<String>> namesById = new HashMap<>();
+        for (CustomRole role : roles) {
+            long mask = 0L;
+            Set<String> permissionNames = new HashSet<>();
+            for (CustomRole inherited : closure(role, rolesById)) {
+                for (CustomPermission permission : inherited.getPermissions()) {
+                    mask |= permissionMask(permission);
+                    permissionNames.add(permission.getName());
+                }
+            }
+            byId.put(role.getId(), mask);
+            byName.put(role.getName(), mask);
+            namesById.put(role.getId(), Collections.unmodifiableSet(permissionNames));
+        }
+
+        return new PermissionMatrix(Collections.unmodifiableMap(byId), Collections.unmodifiableMap(byName),
+                Collections.unmodifiableMap(namesById));
+    }
+
+    // The role itself and every ancestor; unknown parents are skipped and a cycle cannot loop
+    private static Set<CustomRole> closure(CustomRole role, Map<Long, CustomRole> rolesById) {
+        Set<CustomRole> visited = new HashSet<>();
+        collect(role, rolesById, visited);
+        return visited;
+    }
+
+    private static void collect(CustomRole role, Map<Long, CustomRole> rolesById, Set<CustomRole> visited) {
+        if (!visited.add(role) || role.getParentRoleIds() == null) {
+            return;
+        }
+        for (Long parentId : role.getParentRoleIds()) {
+            CustomRole parent = rolesById.get(parentId);
+            if (parent != null) {
+                collect(parent, rolesById, visited);
+            }
+        }
+    }
+
+    public static long bit(CustomPermission.ResourceType resourceType, CustomPermission.PermissionAction action) {
+        return 1L << (resourceType.ordinal() * ACTION_COUNT + action.ordinal());
+    }
+
+    public static long permissionMask(CustomPermission permission) {
+        if (permission.getResourceType() == null || permission.getAction() == null) {
+            return 0L;
+        }
+        if (permission.getAction() != CustomPermission.PermissionAction.ALL) {
+            return bit(permission.getResourceType(), permission.getAction());
+        }
+
+        // ALL grants every action on the resource type, including checks that ask for ALL
+        long mask = 0L;
+        for (CustomPermission.PermissionAction action : CustomPermission.PermissionAction.values()) {
+            mask |= bit(permission.getResourceType(), action);
+        }
+        return mask;
+    }
+
+    public static boolean allows(long mask, CustomPermission.ResourceType resourceType,
+                                 CustomPermission.PermissionAction action) {
+        return (mask & bit(resourceType, action)) != 0L;
+    }
+
+    public long roleMask(Long roleId) {
+        Long mask = masksByRoleId.get(roleId);
+        return mask != null ? mask : 0L;
+    }
+
+    public long roleMask(String roleName) {
+        Long mask = masksByRoleName.get(roleName);
+        return mask != null ? mask : 0L;
+    }
+
+    public Set<String> rolePermissionNames(Long roleId) {
+        Set<String> names = permissionNamesByRoleId.get(roleId);
+        return names != null ? names : Collections.emptySet();
+    }
+
+    public int roleCount() {
+        return masksByRoleId.size();
+    }
+}
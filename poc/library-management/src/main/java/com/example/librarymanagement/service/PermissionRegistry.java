@@ -0,0 +1,190 @@
+package com.example.librarymanagement.service;
+
+import com.example.librarymanagement.entity.CustomPermission;
+import com.example.librarymanagement.repository.CustomPermissionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Permission names from the custom_permissions table, each with a dense integer id.
+ *
+ * Names resolve through a {@link PerfectHashIndex}, ignoring case, so string checks neither
+ * upper-case the name nor catch exceptions for unknown input. Ids are handed out once per name and
+ * survive refreshes, callers may keep them; a deleted permission keeps its id but no longer
+ * resolves to a resource type. The registry is rebuilt after permission changes commit.
+ */
+@Component
+public class PermissionRegistry {
+
+    // The action string checks have always used for these names, unknown names check ALL
+    private static final Map<String, CustomPermission.PermissionAction> CHECK_ACTIONS = Map.ofEntries(
+            Map.entry("READ_BOOK", CustomPermission.PermissionAction.READ),
+            Map.entry("READ_USER", CustomPermission.PermissionAction.READ),
+            Map.entry("READ_ORDER", CustomPermission.PermissionAction.READ),
+            Map.entry("CREATE_BOOK", CustomPermission.PermissionAction.WRITE),
+            Map.entry("CREATE_USER", CustomPermission.PermissionAction.WRITE),
+            Map.entry("CREATE_ORDER", CustomPermission.PermissionAction.WRITE),
+            Map.entry("UPDATE_BOOK", CustomPermission.PermissionAction.WRITE),
+            Map.entry("UPDATE_USER", CustomPermission.PermissionAction.WRITE),
+            Map.entry("DELETE_BOOK", CustomPermission.PermissionAction.DELETE),
+            Map.entry("DELETE_USER", CustomPermission.PermissionAction.DELETE),
+            Map.entry("RENT_BOOK", CustomPermission.PermissionAction.WRITE),
+            Map.entry("RETURN_BOOK", CustomPermission.PermissionAction.WRITE));
+
+    private static final CustomPermission.ResourceType[] RESOURCE_TYPES = CustomPermission.ResourceType.values();
+
+    // Resource type names match exactly, as Enum.valueOf did
+    private static final PerfectHashIndex RESOURCE_TYPE_INDEX = PerfectHashIndex.build(
+            Arrays.stream(RESOURCE_TYPES).map(Enum::name).toList(), false);
+
+    @Autowired
+    private CustomPermissionRepository customPermissionRepository;
+
+    private volatile Snapshot snapshot;
+
+    // Folded name (PerfectHashIndex.fold) to id, only ever grows; guarded by this
+    private final Map<String, Integer> assignedIds = new HashMap<>();
+
+    private final LongAdder rebuilds = new LongAdder();
+
+    /**
+     * The resource type with exactly this name, null for unknown or null names.
+     */
+    public static CustomPermission.ResourceType resourceType(String name) {
+        int ordinal = RESOURCE_TYPE_INDEX.indexOf(name);
+        return ordinal >= 0 ? RESOURCE_TYPES[ordinal] : null;
+    }
+
+    /**
+     * The id of a permission name in any case, -1 when the name is unknown.
+     */
+    public int idOf(String name) {
+        return snapshot().names.indexOf(name);
+    }
+
+    public String nameOf(int id) {
+        Snapshot current = snapshot();
+        return id >= 0 && id < current.size() ? current.nameById.get(id) : null;
+    }
+
+    /**
+     * Resource type of the permission as defined in the table, null for an unknown id or a
+     * permission that no longer exists.
+     */
+    public CustomPermission.ResourceType resourceTypeOf(int id) {
+        Snapshot current = snapshot();
+        return id >= 0 && id < current.size() ? current.resourceTypes[id] : null;
+    }
+
+    public CustomPermission.PermissionAction actionOf(int id) {
+        Snapshot current = snapshot();
+        return id >= 0 && id < current.size() ? current.actions[id] : null;
+    }
+
+    /**
+     * The action a string permission check asks for: READ, WRITE or DELETE for the built-in names,
+     * ALL for every other name.
+     */
+    public CustomPermission.PermissionAction checkAction(String name) {
+        Snapshot current = snapshot();
+        int id = current.names.indexOf(name);
+        return id >= 0 ? current.checkActions[id] : CustomPermission.PermissionAction.ALL;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    // Role changes included: other nodes see permission changes as ROLES events through PolicySyncService
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onPolicyChanged(PolicyChangedEvent event) {
+        if (event.affectsRoles()) {
+            rebuild();
+        }
+    }
+
+    public synchronized void rebuild() {
+        Map<String, CustomPermission> defined = new LinkedHashMap<>();
+        for (CustomPermission permission : customPermissionRepository.findAll()) {
+            if (permission.getName() != null) {
+                defined.put(PerfectHashIndex.fold(permission.getName()), permission);
+            }
+        }
+        for (String name : CHECK_ACTIONS.keySet().stream().sorted().toList()) {
+            assignedIds.computeIfAbsent(name, key -> assignedIds.size());
+        }
+        for (String name : defined.keySet()) {
+            assignedIds.computeIfAbsent(name, key -> assignedIds.size());
+        }
+        snapshot = new Snapshot(assignedIds, defined);
+        rebuilds.increment();
+    }
+
+    public Map<String, Object> getStats() {
+        Snapshot current = snapshot();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ids", current.size());
+        stats.put("slots", current.names.slotCount());
+        stats.put("rebuilds", rebuilds.sum());
+        return stats;
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        return current != null ? current : initialize();
+    }
+
+    private synchronized Snapshot initialize() {
+        if (snapshot == null) {
+            rebuild();
+        }
+        return snapshot;
+    }
+
+    private static final class Snapshot {
+
+        final List<String> nameById;
+        final PerfectHashIndex names;
+        final CustomPermission.ResourceType[] resourceTypes;
+        final CustomPermission.PermissionAction[] actions;
+        final CustomPermission.PermissionAction[] checkActions;
+
+        Snapshot(Map<String, Integer> assignedIds, Map<String, CustomPermission> defined) {
+            String[] byId = new String[assignedIds.size()];
+            assignedIds.forEach((name, id) -> byId[id] = name);
+            nameById = List.of(byId);
+            names = PerfectHashIndex.build(new ArrayList<>(nameById), true);
+
+            resourceTypes = new CustomPermission.ResourceType[byId.length];
+            actions = new CustomPermission.PermissionAction[byId.length];
+            checkActions = new CustomPermission.PermissionAction[byId.length];
+            for (int id = 0; id < byId.length; id++) {
+                CustomPermission permission = defined.get(byId[id]);
+                if (permission != null) {
+                    resourceTypes[id] = permission.getResourceType();
+                    actions[id] = permission.getAction();
+                }
+                checkActions[id] = CHECK_ACTIONS.getOrDefault(byId[id], CustomPermission.PermissionAction.ALL);
+            }
+        }
+
+        int size() {
+            return resourceTypes.length;
+        }
+    }
+}
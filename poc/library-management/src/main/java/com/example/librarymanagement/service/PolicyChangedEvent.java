@@ -0,0 +1,61 @@
+package com.example.librarymanagement.service;
+
+/**
+ * Published by {@link RolePermissionService} whenever role, permission, rule or assignment data changes.
+ * Listeners that keep compiled or cached policy state rebuild once the surrounding transaction commits.
+ */
+public class PolicyChangedEvent {
+
+    public enum ChangeType {
+        ROLES, PERMISSIONS, RULES, ASSIGNMENTS
+    }
+
+    private final ChangeType changeType;
+    private final String userId;
+    private final boolean remote;
+
+    public PolicyChangedEvent(ChangeType changeType) {
+        this(changeType, null);
+    }
+
+    public PolicyChangedEvent(ChangeType changeType, String userId) {
+        this(changeType, userId, false);
+    }
+
+    public PolicyChangedEvent(ChangeType changeType, String userId, boolean remote) {
+        this.changeType = changeType;
+        this.userId = userId;
+        this.remote = remote;
+    }
+
+    public ChangeType getChangeType() {
+        return changeType;
+    }
+
+    // Set for ASSIGNMENTS changes of a single user, null when every user may be affected
+    public String getUserId() {
+        return userId;
+    }
+
+    // True when the change was made on another node and picked up by PolicySyncService
+    public boolean isRemote() {
+        return remote;
+    }
+
+    public boolean affectsRoles() {
+        return changeType == ChangeType.ROLES || changeType == ChangeType.PERMISSIONS;
+    }
+
+    public boolean affectsRules() {
+        return changeType == ChangeType.RULES;
+    }
+
+    public boolean affectsAssignments() {
+        return changeType != ChangeType.RULES;
+    }
+
+    @Override
+    public String toString() {
+        return "PolicyChangedEvent{changeType=" + changeType + ", userId=" + userId + ", remote=" + remote + "}";
+    }
+}
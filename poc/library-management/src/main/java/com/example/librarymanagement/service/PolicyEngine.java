@@ -0,0 +1,58 @@
+package com.example.librarymanagement.service;
+
+import com.example.librarymanagement.repository.CustomRoleRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Holds the current {@link PermissionMatrix} and recompiles it after role or permission changes commit.
+ */
+@Component
+public class PolicyEngine {
+
+    @Autowired
+    private CustomRoleRepository customRoleRepository;
+
+    private volatile PermissionMatrix matrix;
+
+    public PermissionMatrix getMatrix() {
+        PermissionMatrix current = matrix;
+        if (current == null) {
+            current = initialize();
+        }
+        return current;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    // Ahead of the caches holding permissions or masks compiled from the matrix
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onPolicyChanged(PolicyChangedEvent event) {
+        if (event.affectsRoles()) {
+            rebuild();
+        }
+    }
+
+    public synchronized void rebuild() {
+        matrix = PermissionMatrix.compile(customRoleRepository.findAll());
+    }
+
+    private synchronized PermissionMatrix initialize() {
+        if (matrix == null) {
+            rebuild();
+        }
+        return matrix;
+    }
+}
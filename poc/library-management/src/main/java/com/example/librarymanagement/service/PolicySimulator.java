@@ -0,0 +1,434 @@
+package com.example.librarymanagement.service;
+
+import com.example.librarymanagement.dto.PolicyImpact;
+import com.example.librarymanagement.dto.PolicySimulationRequest;
+import com.example.librarymanagement.dto.PolicySimulationResponse;
+import com.example.librarymanagement.dto.SimulatedRoleChange;
+import com.example.librarymanagement.dto.SimulatedRuleChange;
+import com.example.librarymanagement.entity.CustomPermission;
+import com.example.librarymanagement.entity.CustomPermissionRule;
+import com.example.librarymanagement.entity.CustomRole;
+import com.example.librarymanagement.repository.CustomPermissionRepository;
+import com.example.librarymanagement.repository.CustomPermissionRuleRepository;
+import com.example.librarymanagement.repository.CustomRoleRepository;
+import com.example.librarymanagement.repository.UserCustomRoleRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+
+/**
+ * What-if evaluation of a proposed policy change against every user with a live role assignment.
+ *
+ * Roles, rules and assignments are copied into detached snapshots, the proposed role and rule
+ * changes are applied to the copies, and the current and proposed policies are compiled side by
+ * side. Users are then evaluated in partitions on a dedicated fork/join pool, so neither the live
+ * PermissionMatrix and DenyRuleIndex nor the request threads are involved.
+ *
+ * Impacts are reported per (resourceType, action) for role permission changes, and per
+ * (resourceType, action, resourceId) for the resources named by changed DENY rules. Server-side
+ * attributes such as active_rentals are loaded for all users in one query before the partitions
+ * run. Claims are not part of the snapshot, so CUSTOM_CONDITION rules on claim.* never match
+ * during a simulation.
+ */
+@Service
+public class PolicySimulator {
+
+    private static final int PARTITION_SIZE = 2048;
+
+    private static final CustomPermission.ResourceType[] RESOURCE_TYPES = CustomPermission.ResourceType.values();
+    private static final CustomPermission.PermissionAction[] ACTIONS = CustomPermission.PermissionAction.values();
+
+    @Autowired
+    private CustomRoleRepository customRoleRepository;
+
+    @Autowired
+    private CustomPermissionRepository customPermissionRepository;
+
+    @Autowired
+    private CustomPermissionRuleRepository customPermissionRuleRepository;
+
+    @Autowired
+    private UserCustomRoleRepository userCustomRoleRepository;
+
+    @Autowired
+    private ConditionAttributeProvider conditionAttributeProvider;
+
+    @Value("${library.simulation.parallelism:0}")
+    private int parallelism;
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    public void start() {
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void stop() {
+        pool.shutdownNow();
+    }
+
+    @Transactional(readOnly = true)
+    public PolicySimulationResponse simulate(PolicySimulationRequest request) {
+        long started = System.currentTimeMillis();
+
+        List<CustomRole> currentRoles = customRoleRepository.findAll();
+        List<CustomRole> proposedRoles = applyRoleChanges(currentRoles, request.getRoleChanges());
+        List<CustomPermissionRule> currentRules = customPermissionRuleRepository.findAll();
+        List<CustomPermissionRule> proposedRules = applyRuleChanges(currentRules, request.getRuleChanges());
+
+        List<ResourceKey> touchedResources = touchedResources(currentRules, request.getRuleChanges());
+        Simulation simulation = new Simulation(
+                PermissionMatrix.compile(currentRoles), PermissionMatrix.compile(proposedRoles),
+                DenyRuleIndex.snapshotOf(denyRules(currentRules)), DenyRuleIndex.snapshotOf(denyRules(proposedRules)),
+                touchedResources, roleNames(currentRoles),
+                touchedResources.isEmpty() ? null : conditionAttributeProvider.snapshot());
+
+        List<SimulatedUser> users = loadUsers();
+        ImpactCounts counts = pool.invoke(new EvaluateUsers(simulation, users, 0, users.size()));
+
+        List<PolicyImpact> impacts = counts.toImpacts();
+        impacts.sort((a, b) -> Long.compare(b.getGained() + b.getLost(), a.getGained() + a.getLost()));
+        return new PolicySimulationResponse(users.size(), System.currentTimeMillis() - started, impacts);
+    }
+
+    private List<CustomRole> applyRoleChanges(List<CustomRole> currentRoles, List<SimulatedRoleChange> changes) {
+        Map<Long, SimulatedRoleChange> changesByRoleId = new HashMap<>();
+        for (SimulatedRoleChange change : changes) {
+            changesByRoleId.put(change.getRoleId(), change);
+        }
+        Set<Long> knownRoleIds = new HashSet<>();
+        List<CustomRole> proposed = new ArrayList<>(currentRoles.size());
+        for (CustomRole role : currentRoles) {
+            knownRoleIds.add(role.getId());
+            // Detached copies, the managed entities are never modified
+            CustomRole copy = new CustomRole();
+            copy.setId(role.getId());
+            copy.setName(role.getName());
+            copy.setPermissions(new HashSet<>(role.getPermissions()));
+            copy.setParentRoleIds(new HashSet<>(role.getParentRoleIds()));
+
+            SimulatedRoleChange change = changesByRoleId.get(role.getId());
+            if (change != null && change.getPermissionIds() != null) {
+                List<CustomPermission> permissions = customPermissionRepository.findAllById(change.getPermissionIds());
+                if (permissions.size() != change.getPermissionIds().size()) {
+                    throw new RuntimeException("Unknown permission in proposed permissions of role " + role.getId());
+                }
+                copy.setPermissions(new HashSet<>(permissions));
+            }
+            if (change != null && change.getParentRoleIds() != null) {
+                copy.setParentRoleIds(new HashSet<>(change.getParentRoleIds()));
+            }
+            proposed.add(copy);
+        }
+        for (Long roleId : changesByRoleId.keySet()) {
+            if (!knownRoleIds.contains(roleId)) {
+                throw new RoleNotFoundException(roleId);
+            }
+        }
+        return proposed;
+    }
+
+    private List<CustomPermissionRule> applyRuleChanges(List<CustomPermissionRule> currentRules, List<SimulatedRuleChange> changes) {
+        Map<Long, CustomPermissionRule> rulesById = new LinkedHashMap<>();
+        for (CustomPermissionRule rule : currentRules) {
+            rulesById.put(rule.getId(), rule);
+        }
+        List<CustomPermissionRule> added = new ArrayList<>();
+        for (SimulatedRuleChange change : changes) {
+            CustomPermissionRule existing = null;
+            if (change.getRuleId() != null) {
+                existing = rulesById.get(change.getRuleId());
+                if (existing == null) {
+                    throw new RuntimeException("Permission rule not found with id: " + change.getRuleId());
+                }
+            }
+            if (change.isDeleted()) {
+                if (existing != null) {
+                    rulesById.remove(existing.getId());
+                }
+                continue;
+            }
+            CustomPermissionRule proposed = copyWithChange(existing, change);
+            if (proposed.getConditionType() == CustomPermissionRule.ConditionType.CUSTOM_CONDITION) {
+                ConditionCompiler.compile(proposed.getConditionValue());
+            }
+            if (existing != null) {
+                rulesById.put(existing.getId(), proposed);
+            } else {
+                added.add(proposed);
+            }
+        }
+        List<CustomPermissionRule> proposedRules = new ArrayList<>(rulesById.values());
+        proposedRules.addAll(added);
+        return proposedRules;
+    }
+
+    private static CustomPermissionRule copyWithChange(CustomPermissionRule existing, SimulatedRuleChange change) {
+        CustomPermissionRule rule = new CustomPermissionRule();
+        rule.setId(existing != null ? existing.getId() : null);
+        rule.setResourceType(change.getResourceType() != null ? change.getResourceType()
+                : existing != null ? existing.getResourceType() : null);
+        rule.setResourceId(change.getResourceId() != null ? change.getResourceId()
+                : existing != null ? existing.getResourceId() : null);
+        rule.setEffect(change.getEffect() != null ? change.getEffect()
+                : existing != null ? existing.getEffect() : CustomPermissionRule.RuleEffect.DENY);
+        rule.setConditionType(change.getConditionType() != null ? change.getConditionType()
+                : existing != null ? existing.getConditionType() : null);
+        rule.setConditionValue(change.getConditionValue() != null ? change.getConditionValue()
+                : existing != null ? existing.getConditionValue() : null);
+        return rule;
+    }
+
+    private static List<CustomPermissionRule> denyRules(List<CustomPermissionRule> rules) {
+        List<CustomPermissionRule> denyRules = new ArrayList<>();
+        for (CustomPermissionRule rule : rules) {
+            if (rule.getEffect() == CustomPermissionRule.RuleEffect.DENY) {
+                denyRules.add(rule);
+            }
+        }
+        return denyRules;
+    }
+
+    // Resources whose DENY rules differ between the current and the proposed policy
+    private static List<ResourceKey> touchedResources(List<CustomPermissionRule> currentRules, List<SimulatedRuleChange> changes) {
+        Map<Long, CustomPermissionRule> rulesById = new HashMap<>();
+        for (CustomPermissionRule rule : currentRules) {
+            rulesById.put(rule.getId(), rule);
+        }
+        Set<ResourceKey> touched = new LinkedHashSet<>();
+        for (SimulatedRuleChange change : changes) {
+            CustomPermissionRule existing = change.getRuleId() != null ? rulesById.get(change.getRuleId()) : null;
+            if (existing != null && existing.getResourceType() != null && existing.getResourceId() != null) {
+                touched.add(new ResourceKey(existing.getResourceType(), existing.getResourceId()));
+            }
+            if (!change.isDeleted()) {
+                CustomPermission.ResourceType resourceType = change.getResourceType() != null ? change.getResourceType()
+                        : existing != null ? existing.getResourceType() : null;
+                Long resourceId = change.getResourceId() != null ? change.getResourceId()
+                        : existing != null ? existing.getResourceId() : null;
+                if (resourceType != null && resourceId != null) {
+                    touched.add(new ResourceKey(resourceType, resourceId));
+                }
+            }
+        }
+        return new ArrayList<>(touched);
+    }
+
+    private static Map<Long, String> roleNames(List<CustomRole> roles) {
+        Map<Long, String> names = new HashMap<>();
+        for (CustomRole role : roles) {
+            names.put(role.getId(), role.getName());
+        }
+        return names;
+    }
+
+    private List<SimulatedUser> loadUsers() {
+        Map<String, SimulatedUser> usersById = new HashMap<>();
+        for (Object[] assignment : userCustomRoleRepository.findActiveAssignmentTuples()) {
+            String userId = (String) assignment[0];
+            SimulatedUser user = usersById.computeIfAbsent(userId, SimulatedUser::new);
+            if (user.username == null) {
+                user.username = (String) assignment[1];
+            }
+            user.roleIds.add((Long) assignment[2]);
+        }
+        return new ArrayList<>(usersById.values());
+    }
+
+    private static final class SimulatedUser {
+        final String userId;
+        String username;
+        final Set<Long> roleIds = new HashSet<>();
+
+        SimulatedUser(String userId) {
+            this.userId = userId;
+        }
+    }
+
+    private static final class ResourceKey {
+        final CustomPermission.ResourceType resourceType;
+        final long resourceId;
+
+        ResourceKey(CustomPermission.ResourceType resourceType, long resourceId) {
+            this.resourceType = resourceType;
+            this.resourceId = resourceId;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof ResourceKey)) {
+                return false;
+            }
+            ResourceKey key = (ResourceKey) other;
+            return resourceType == key.resourceType && resourceId == key.resourceId;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(resourceType, resourceId);
+        }
+    }
+
+    /**
+     * The two compiled policies and everything else shared read-only by the partitions.
+     */
+    private static final class Simulation {
+        final PermissionMatrix currentMatrix;
+        final PermissionMatrix proposedMatrix;
+        final DenyRuleIndex.Snapshot currentRules;
+        final DenyRuleIndex.Snapshot proposedRules;
+        final List<ResourceKey> touchedResources;
+        final Map<Long, String> roleNames;
+        // Null when no rule changed, only the touched resources evaluate conditions
+        final ConditionAttributeProvider.Snapshot attributes;
+
+        Simulation(PermissionMatrix currentMatrix, PermissionMatrix proposedMatrix,
+                   DenyRuleIndex.Snapshot currentRules, DenyRuleIndex.Snapshot proposedRules,
+                   List<ResourceKey> touchedResources, Map<Long, String> roleNames,
+                   ConditionAttributeProvider.Snapshot attributes) {
+            this.currentMatrix = currentMatrix;
+            this.proposedMatrix = proposedMatrix;
+            this.currentRules = currentRules;
+            this.proposedRules = proposedRules;
+            this.touchedResources = touchedResources;
+            this.roleNames = roleNames;
+            this.attributes = attributes;
+        }
+    }
+
+    private static final class EvaluateUsers extends RecursiveTask<ImpactCounts> {
+        private static final long serialVersionUID = 1L;
+
+        private final Simulation simulation;
+        private final List<SimulatedUser> users;
+        private final int from;
+        private final int to;
+
+        EvaluateUsers(Simulation simulation, List<SimulatedUser> users, int from, int to) {
+            this.simulation = simulation;
+            this.users = users;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected ImpactCounts compute() {
+            if (to - from > PARTITION_SIZE) {
+                int middle = (from + to) >>> 1;
+                EvaluateUsers left = new EvaluateUsers(simulation, users, from, middle);
+                left.fork();
+                ImpactCounts right = new EvaluateUsers(simulation, users, middle, to).compute();
+                return left.join().merge(right);
+            }
+            ImpactCounts counts = new ImpactCounts();
+            for (int i = from; i < to; i++) {
+                evaluate(users.get(i), counts);
+            }
+            return counts;
+        }
+
+        private void evaluate(SimulatedUser user, ImpactCounts counts) {
+            long currentMask = 0L;
+            long proposedMask = 0L;
+            Set<String> roleNames = new HashSet<>();
+            for (Long roleId : user.roleIds) {
+                currentMask |= simulation.currentMatrix.roleMask(roleId);
+                proposedMask |= simulation.proposedMatrix.roleMask(roleId);
+                String roleName = simulation.roleNames.get(roleId);
+                if (roleName != null) {
+                    roleNames.add(roleName);
+                }
+            }
+
+            if (currentMask != proposedMask) {
+                for (CustomPermission.ResourceType resourceType : RESOURCE_TYPES) {
+                    for (CustomPermission.PermissionAction action : ACTIONS) {
+                        boolean before = PermissionMatrix.allows(currentMask, resourceType, action);
+                        boolean after = PermissionMatrix.allows(proposedMask, resourceType, action);
+                        if (before != after) {
+                            counts.add(resourceType, action, null, after);
+                        }
+                    }
+                }
+            }
+
+            if (simulation.touchedResources.isEmpty()) {
+                return;
+            }
+            // Server-side attributes such as active_rentals are the same before and after the change
+            Function<String, Object> serverAttributes = name -> simulation.attributes.resolve(user.userId, name);
+            EvaluationContext currentContext = new EvaluationContext(user.userId, user.username, user.roleIds,
+                    roleNames, null, null, currentMask, serverAttributes);
+            EvaluationContext proposedContext = new EvaluationContext(user.userId, user.username, user.roleIds,
+                    roleNames, null, null, proposedMask, serverAttributes);
+            for (ResourceKey resource : simulation.touchedResources) {
+                boolean deniedBefore = isDenied(simulation.currentRules, resource, currentContext);
+                boolean deniedAfter = isDenied(simulation.proposedRules, resource, proposedContext);
+                for (CustomPermission.PermissionAction action : ACTIONS) {
+                    boolean before = !deniedBefore && PermissionMatrix.allows(currentMask, resource.resourceType, action);
+                    boolean after = !deniedAfter && PermissionMatrix.allows(proposedMask, resource.resourceType, action);
+                    if (before != after) {
+                        counts.add(resource.resourceType, action, resource.resourceId, after);
+                    }
+                }
+            }
+        }
+
+        private static boolean isDenied(DenyRuleIndex.Snapshot rules, ResourceKey resource, EvaluationContext context) {
+            DenyRuleIndex.ResourceRules resourceRules = rules.rulesFor(resource.resourceType, resource.resourceId);
+            return resourceRules != null && resourceRules.findMatchingRule(context) != null;
+        }
+    }
+
+    /**
+     * Gained and lost counts per impact key, merged pairwise up the fork/join tree.
+     */
+    private static final class ImpactCounts {
+        private final Map<List<Object>, long[]> counts = new HashMap<>();
+
+        void add(CustomPermission.ResourceType resourceType, CustomPermission.PermissionAction action,
+                 Long resourceId, boolean gained) {
+            long[] entry = counts.computeIfAbsent(keyOf(resourceType, action, resourceId), key -> new long[2]);
+            entry[gained ? 0 : 1]++;
+        }
+
+        ImpactCounts merge(ImpactCounts other) {
+            other.counts.forEach((key, entry) -> {
+                long[] mine = counts.computeIfAbsent(key, k -> new long[2]);
+                mine[0] += entry[0];
+                mine[1] += entry[1];
+            });
+            return this;
+        }
+
+        List<PolicyImpact> toImpacts() {
+            List<PolicyImpact> impacts = new ArrayList<>(counts.size());
+            counts.forEach((key, entry) -> impacts.add(new PolicyImpact((CustomPermission.ResourceType) key.get(0),
+                    (CustomPermission.PermissionAction) key.get(1), (Long) key.get(2), entry[0], entry[1])));
+            return impacts;
+        }
+
+        private static List<Object> keyOf(CustomPermission.ResourceType resourceType,
+                                          CustomPermission.PermissionAction action, Long resourceId) {
+            return Arrays.asList(resourceType, action, resourceId);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.librarymanagement.service;
+
+import com.example.librarymanagement.entity.PolicyVersion;
+import com.example.librarymanagement.repository.PolicyVersionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the in-process policy caches of several nodes coherent through the shared database.
+ *
+ * Every local policy change bumps a version row in policy_versions inside the writing transaction.
+ * Each node polls for rows newer than the last version it has seen and replays them as remote
+ * {@link PolicyChangedEvent}s, so only the changed scope (one user, rules, or roles) is invalidated.
+ */
+@Service
+public class PolicySyncService {
+
+    static final String ROLES_SCOPE = "roles";
+    static final String RULES_SCOPE = "rules";
+    static final String ASSIGNMENTS_SCOPE = "assignments";
+    static final String USER_SCOPE_PREFIX = "user:";
+
+    @Autowired
+    private PolicyVersionRepository policyVersionRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private volatile long lastSeenVersion = -1;
+
+    // Versions written by this node, their changes were already applied locally
+    private final Set<Long> localVersions = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong appliedChanges = new AtomicLong();
+    private final AtomicLong lastStalenessMillis = new AtomicLong();
+    private final AtomicLong maxStalenessMillis = new AtomicLong();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!policyVersionRepository.existsById(PolicyVersion.SEQUENCE_SCOPE)) {
+            try {
+                policyVersionRepository.save(new PolicyVersion(PolicyVersion.SEQUENCE_SCOPE, 0L, LocalDateTime.now()));
+            } catch (DataIntegrityViolationException e) {
+                // Another node created it first
+            }
+        }
+        // Local caches are built from the current data, only later changes matter
+        lastSeenVersion = policyVersionRepository.findCurrentSequence();
+    }
+
+    @EventListener
+    @Transactional
+    public void onPolicyChanged(PolicyChangedEvent event) {
+        if (event.isRemote()) {
+            return;
+        }
+        // Runs inside the writing transaction, the version becomes visible with the change itself
+        if (policyVersionRepository.incrementSequence() == 0) {
+            policyVersionRepository.save(new PolicyVersion(PolicyVersion.SEQUENCE_SCOPE, 1L, LocalDateTime.now()));
+        }
+        long version = policyVersionRepository.findCurrentSequence();
+
+        String scope = scopeOf(event);
+        PolicyVersion scopeVersion = policyVersionRepository.findById(scope)
+                .orElseGet(() -> new PolicyVersion(scope, 0L, null));
+        scopeVersion.setVersion(version);
+        scopeVersion.setUpdatedAt(LocalDateTime.now());
+        policyVersionRepository.save(scopeVersion);
+
+        localVersions.add(version);
+    }
+
+    @Scheduled(fixedDelayString = "${library.policy-sync.poll-interval-ms:1000}")
+    public void pollForChanges() {
+        long lastSeen = lastSeenVersion;
+        if (lastSeen < 0) {
+            return; // not started yet
+        }
+
+        List<PolicyVersion> changes = policyVersionRepository.findChangesAfter(lastSeen);
+        long now = System.currentTimeMillis();
+        for (PolicyVersion change : changes) {
+            lastSeen = Math.max(lastSeen, change.getVersion());
+            if (localVersions.remove(change.getVersion())) {
+                continue;
+            }
+            eventPublisher.publishEvent(toRemoteEvent(change.getScope()));
+            recordStaleness(change, now);
+        }
+        lastSeenVersion = lastSeen;
+
+        // Versions of rolled back local writes never show up, drop them once they are behind
+        long seen = lastSeen;
+        localVersions.removeIf(version -> version <= seen);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("lastSeenVersion", lastSeenVersion);
+        stats.put("appliedRemoteChanges", appliedChanges.get());
+        stats.put("lastStalenessMillis", lastStalenessMillis.get());
+        stats.put("maxStalenessMillis", maxStalenessMillis.get());
+        return stats;
+    }
+
+    private void recordStaleness(PolicyVersion change, long nowMillis) {
+        appliedChanges.incrementAndGet();
+        if (change.getUpdatedAt() == null) {
+            return;
+        }
+        // Time between the write on the other node and this node dropping its stale state
+        long staleness = Math.max(0L, nowMillis - change.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        lastStalenessMillis.set(staleness);
+        maxStalenessMillis.accumulateAndGet(staleness, Math::max);
+    }
+
+    static String scopeOf(PolicyChangedEvent event) {
+        switch (event.getChangeType()) {
+            case ROLES:
+            case PERMISSIONS:
+                return ROLES_SCOPE;
+            case RULES:
+                return RULES_SCOPE;
+            default:
+                return event.getUserId() != null ? USER_SCOPE_PREFIX + event.getUserId() : ASSIGNMENTS_SCOPE;
+        }
+    }
+
+    static PolicyChangedEvent toRemoteEvent(String scope) {
+        if (scope.startsWith(USER_SCOPE_PREFIX)) {
+            return new PolicyChangedEvent(PolicyChangedEvent.ChangeType.ASSIGNMENTS,
+                    scope.substring(USER_SCOPE_PREFIX.length()), true);
+        }
+        switch (scope) {
+            case ROLES_SCOPE:
+                return new PolicyChangedEvent(PolicyChangedEvent.ChangeType.ROLES, null, true);
+            case RULES_SCOPE:
+                return new PolicyChangedEvent(PolicyChangedEvent.ChangeType.RULES, null, true);
+            default:
+                return new PolicyChangedEvent(PolicyChangedEvent.ChangeType.ASSIGNMENTS, null, true);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.librarymanagement.service;
+
+/**
+ * Thrown when an operation names a custom role id that does not exist.
+ */
+public class RoleNotFoundException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long roleId;
+
+    public RoleNotFoundException(Long roleId) {
+        super("Role not found with id: " + roleId);
+        this.roleId = roleId;
+    }
+
+    public Long getRoleId() {
+        return roleId;
+    }
+}
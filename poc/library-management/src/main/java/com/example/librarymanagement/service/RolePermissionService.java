@@ -1,20 +1,47 @@
 package com.example.librarymanagement.service;
 
+import com.example.librarymanagement.config.LibraryAuthenticationToken;
+import com.example.librarymanagement.config.LibraryPrincipal;
+import com.example.librarymanagement.dto.BulkAssignmentItem;
+import com.example.librarymanagement.dto.BulkAssignmentResponse;
+import com.example.librarymanagement.dto.PermissionCheckItem;
 import com.example.librarymanagement.entity.*;
 import com.example.librarymanagement.repository.CustomPermissionRepository;
 import com.example.librarymanagement.repository.CustomPermissionRuleRepository;
 import com.example.librarymanagement.repository.CustomRoleRepository;
+import com.example.librarymanagement.repository.UserCustomRoleArchiveRepository;
 import com.example.librarymanagement.repository.UserCustomRoleRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.oauth2.jwt.Jwt;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -23,6 +50,11 @@ import java.util.stream.Collectors;
 @Transactional
 public class RolePermissionService {
 
+    private static final Logger log = LoggerFactory.getLogger(RolePermissionService.class);
+
+    // Rows deduplicated and inserted per round trip in bulk assignment
+    static final int BULK_ASSIGNMENT_CHUNK_SIZE = 500;
+
     @Autowired
     private CustomRoleRepository customRoleRepository;
 
@@ -35,15 +67,54 @@ public class RolePermissionService {
     @Autowired
     private CustomPermissionRuleRepository customPermissionRuleRepository;
 
+    @Autowired
+    private UserCustomRoleArchiveRepository archiveRepository;
+
+    @Autowired
+    private PolicyEngine policyEngine;
+
+    @Autowired
+    private PermissionRegistry permissionRegistry;
+
+    @Autowired
+    private DenyRuleIndex denyRuleIndex;
+
+    @Autowired
+    private UserAuthorizationCache userAuthorizationCache;
+
+    @Autowired
+    private ConditionAttributeProvider conditionAttributeProvider;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private DecisionLogger decisionLogger;
+
+    @Autowired
+    private AuditTrail auditTrail;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${library.role-delete.chunk-size:1000}")
+    private int roleDeleteChunkSize;
+
     // CustomRole operations
+    @Transactional(readOnly = true)
     public List<CustomRole> findAllRoles() {
         return customRoleRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
     public Optional<CustomRole> findRoleById(Long id) {
         return customRoleRepository.findById(id);
     }
 
+    @Transactional(readOnly = true)
     public Optional<CustomRole> findRoleByName(String name) {
         return customRoleRepository.findByName(name);
     }
@@ -52,12 +123,17 @@ public class RolePermissionService {
         if (customRoleRepository.existsByName(role.getName())) {
             throw new RuntimeException("Role with name '" + role.getName() + "' already exists");
         }
-        return customRoleRepository.save(role);
+        validateParentRoles(null, role.getParentRoleIds());
+        CustomRole savedRole = customRoleRepository.save(role);
+        publishPolicyChange(PolicyChangedEvent.ChangeType.ROLES);
+        auditTrail.recordChange("role.create", "role=" + savedRole.getId() + " name=" + savedRole.getName()
+                + " permissions=" + permissionIds(savedRole) + " parents=" + savedRole.getParentRoleIds());
+        return savedRole;
     }
 
     public CustomRole updateRole(Long id, CustomRole roleDetails) {
         CustomRole role = customRoleRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Role not found with id: " + id));
+                .orElseThrow(() -> new RoleNotFoundException(id));
 
         // Check if name is being changed and if it conflicts
         if (!role.getName().equals(roleDetails.getName()) &&
@@ -68,30 +144,100 @@ public class RolePermissionService {
         role.setName(roleDetails.getName());
         role.setDescription(roleDetails.getDescription());
         role.setPermissions(roleDetails.getPermissions());
+        if (roleDetails.getParentRoleIds() != null) {
+            validateParentRoles(id, roleDetails.getParentRoleIds());
+            role.setParentRoleIds(roleDetails.getParentRoleIds());
+        }
 
-        return customRoleRepository.save(role);
+        CustomRole savedRole = customRoleRepository.save(role);
+        publishPolicyChange(PolicyChangedEvent.ChangeType.ROLES);
+        auditTrail.recordChange("role.update", "role=" + savedRole.getId() + " name=" + savedRole.getName()
+                + " permissions=" + permissionIds(savedRole) + " parents=" + savedRole.getParentRoleIds());
+        return savedRole;
     }
 
+    /**
+     * Deletes a role and everything that references it with set-based statements. Assignments are
+     * removed in bounded chunks, each in its own transaction, so widely assigned roles neither hold
+     * locks for long nor load rows into memory. Caches are invalidated once, when the role is gone.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void deleteRole(Long id) {
-        CustomRole role = customRoleRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Role not found with id: " + id));
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        String roleName = transaction.execute(status -> customRoleRepository.findById(id)
+                .map(CustomRole::getName)
+                .orElseThrow(() -> new RoleNotFoundException(id)));
+
+        long removedAssignments = 0;
+        int removed;
+        do {
+            removed = transaction.execute(status -> userCustomRoleRepository.deleteChunkByRoleId(id, roleDeleteChunkSize));
+            removedAssignments += removed;
+            if (removed == roleDeleteChunkSize && (removedAssignments / roleDeleteChunkSize) % 10 == 0) {
+                log.info("Deleting role {} ({}): {} assignments removed so far", id, roleName, removedAssignments);
+            }
+        } while (removed == roleDeleteChunkSize);
+
+        long totalRemoved = removedAssignments;
+        transaction.executeWithoutResult(status -> {
+            // Assignments added while the chunks ran are removed with the role
+            long lateAssignments = userCustomRoleRepository.deleteChunkByRoleId(id, Integer.MAX_VALUE);
+            customRoleRepository.deleteRolePermissions(id);
+            // Child roles stop inheriting from the deleted role
+            customRoleRepository.deleteRoleParentLinks(id);
+            customRoleRepository.deleteRoleById(id);
+            publishPolicyChange(PolicyChangedEvent.ChangeType.ROLES);
+            auditTrail.recordChange("role.delete", "role=" + id + " name=" + roleName
+                    + " removedAssignments=" + (totalRemoved + lateAssignments));
+        });
+        if (totalRemoved >= roleDeleteChunkSize) {
+            log.info("Deleted role {} ({}) and {} assignments", id, roleName, totalRemoved);
+        }
+    }
 
-        // Remove role assignments
-        List<UserCustomRole> assignments = userCustomRoleRepository.findByCustomRole(role);
-        userCustomRoleRepository.deleteAll(assignments);
+    private void validateParentRoles(Long roleId, Set<Long> parentRoleIds) {
+        if (parentRoleIds == null || parentRoleIds.isEmpty()) {
+            return;
+        }
+        Map<Long, Set<Long>> parentsByRoleId = new HashMap<>();
+        for (CustomRole existing : customRoleRepository.findAll()) {
+            parentsByRoleId.put(existing.getId(), existing.getParentRoleIds());
+        }
+        for (Long parentId : parentRoleIds) {
+            if (!parentsByRoleId.containsKey(parentId)) {
+                throw new RuntimeException("Parent role not found with id: " + parentId);
+            }
+        }
+        if (roleId == null) {
+            return; // a new role has no children yet, so it cannot close a cycle
+        }
 
-        customRoleRepository.delete(role);
+        // Walk up from the new parents, reaching the role itself would make it its own ancestor
+        Set<Long> visited = new HashSet<>();
+        Deque<Long> pending = new ArrayDeque<>(parentRoleIds);
+        while (!pending.isEmpty()) {
+            Long current = pending.pop();
+            if (current.equals(roleId)) {
+                throw new RuntimeException("Role " + roleId + " cannot inherit from itself through parent roles " + parentRoleIds);
+            }
+            if (visited.add(current)) {
+                pending.addAll(parentsByRoleId.getOrDefault(current, Collections.emptySet()));
+            }
+        }
     }
 
     // CustomPermission operations
+    @Transactional(readOnly = true)
     public List<CustomPermission> findAllPermissions() {
         return customPermissionRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
     public Optional<CustomPermission> findPermissionById(Long id) {
         return customPermissionRepository.findById(id);
     }
 
+    @Transactional(readOnly = true)
     public Optional<CustomPermission> findPermissionByName(String name) {
         return customPermissionRepository.findByName(name);
     }
@@ -100,7 +246,10 @@ public class RolePermissionService {
         if (customPermissionRepository.existsByName(permission.getName())) {
             throw new RuntimeException("Permission with name '" + permission.getName() + "' already exists");
         }
-        return customPermissionRepository.save(permission);
+        CustomPermission savedPermission = customPermissionRepository.save(permission);
+        publishPolicyChange(PolicyChangedEvent.ChangeType.PERMISSIONS);
+        auditTrail.recordChange("permission.create", describePermission(savedPermission));
+        return savedPermission;
     }
 
     public CustomPermission updatePermission(Long id, CustomPermission permissionDetails) {
@@ -117,31 +266,39 @@ public class RolePermissionService {
         permission.setResourceType(permissionDetails.getResourceType());
         permission.setAction(permissionDetails.getAction());
 
-        return customPermissionRepository.save(permission);
+        CustomPermission savedPermission = customPermissionRepository.save(permission);
+        publishPolicyChange(PolicyChangedEvent.ChangeType.PERMISSIONS);
+        auditTrail.recordChange("permission.update", describePermission(savedPermission));
+        return savedPermission;
     }
 
     public void deletePermission(Long id) {
         customPermissionRepository.deleteById(id);
+        publishPolicyChange(PolicyChangedEvent.ChangeType.PERMISSIONS);
+        auditTrail.recordChange("permission.delete", "permission=" + id);
     }
 
     // User Role Assignment operations
+    @Transactional(readOnly = true)
     public List<UserCustomRole> findAllUserRoles() {
         return userCustomRoleRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
     public List<UserCustomRole> findRolesByUserId(String userId) {
         return userCustomRoleRepository.findByUserId(userId);
     }
 
+    @Transactional(readOnly = true)
     public List<UserCustomRole> findActiveRolesByUserId(String userId) {
         return userCustomRoleRepository.findActiveRolesByUserId(userId);
     }
 
     public UserCustomRole assignRoleToUser(String userId, String username, Long roleId) {
         CustomRole role = customRoleRepository.findById(roleId)
-                .orElseThrow(() -> new RuntimeException("Role not found with id: " + roleId));
+                .orElseThrow(() -> new RoleNotFoundException(roleId));
 
-        if (userCustomRoleRepository.existsByUserIdAndCustomRole(userId, role)) {
+        if (!replaceExpiredAssignment(userId, role)) {
             throw new RuntimeException("User already has this role assigned");
         }
 
@@ -150,26 +307,146 @@ public class RolePermissionService {
         assignment.setUsername(username);
         assignment.setCustomRole(role);
 
-        return userCustomRoleRepository.save(assignment);
+        UserCustomRole savedAssignment = userCustomRoleRepository.save(assignment);
+        publishAssignmentChange(userId);
+        auditTrail.recordChange("assignment.create", "user=" + userId + " role=" + roleId);
+        return savedAssignment;
     }
 
     public void removeRoleFromUser(String userId, Long roleId) {
         CustomRole role = customRoleRepository.findById(roleId)
-                .orElseThrow(() -> new RuntimeException("Role not found with id: " + roleId));
+                .orElseThrow(() -> new RoleNotFoundException(roleId));
 
         UserCustomRole assignment = userCustomRoleRepository.findByUserIdAndCustomRole(userId, role)
                 .orElseThrow(() -> new RuntimeException("User does not have this role assigned"));
 
         userCustomRoleRepository.delete(assignment);
+        publishAssignmentChange(userId);
+        auditTrail.recordChange("assignment.delete", "user=" + userId + " role=" + roleId);
+    }
+
+    /**
+     * Assigns one role to many users. The items are consumed chunk by chunk: each chunk is checked
+     * against existing assignments with a single IN query and inserted as one JDBC batch, then the
+     * persistence context is cleared so memory stays bounded however long the input is. Users whose
+     * assignment of the role has expired but not been swept yet are renewed: the expired row is
+     * archived and replaced in the same chunk.
+     */
+    public BulkAssignmentResponse bulkAssignRole(Long roleId, Iterator<BulkAssignmentItem> items) {
+        CustomRole role = customRoleRepository.findById(roleId)
+                .orElseThrow(() -> new RoleNotFoundException(roleId));
+
+        long received = 0;
+        BulkCounts counts = new BulkCounts();
+        Map<String, BulkAssignmentItem> chunk = new LinkedHashMap<>();
+        while (items.hasNext()) {
+            BulkAssignmentItem item = items.next();
+            received++;
+            if (item == null || item.getUserId() == null || item.getUserId().isBlank()) {
+                continue;
+            }
+            chunk.putIfAbsent(item.getUserId(), item);
+            if (chunk.size() == BULK_ASSIGNMENT_CHUNK_SIZE) {
+                insertAssignments(role, chunk, counts);
+                chunk.clear();
+            }
+        }
+        insertAssignments(role, chunk, counts);
+
+        if (counts.inserted + counts.renewed > 0) {
+            // One invalidation for the whole batch instead of one per user
+            eventPublisher.publishEvent(new PolicyChangedEvent(PolicyChangedEvent.ChangeType.ASSIGNMENTS));
+            auditTrail.recordChange("assignment.bulk-create", "role=" + roleId + " inserted=" + counts.inserted
+                    + " renewed=" + counts.renewed);
+        }
+        return new BulkAssignmentResponse(roleId, counts.inserted, counts.renewed,
+                received - counts.inserted - counts.renewed);
+    }
+
+    private static final class BulkCounts {
+        long inserted;
+        long renewed;
+    }
+
+    private void insertAssignments(CustomRole role, Map<String, BulkAssignmentItem> chunk, BulkCounts counts) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        // Live assignments are skipped, expired ones the sweeper has not reached yet are replaced
+        LocalDateTime now = LocalDateTime.now();
+        Set<String> liveUserIds = new HashSet<>();
+        List<Long> expiredIds = new ArrayList<>();
+        for (Object[] existing : userCustomRoleRepository.findAssignmentTuples(role, chunk.keySet())) {
+            if (isLive((LocalDateTime) existing[2], now)) {
+                liveUserIds.add((String) existing[1]);
+            } else {
+                expiredIds.add((Long) existing[0]);
+            }
+        }
+        archiveAssignments(expiredIds, now);
+
+        List<UserCustomRole> assignments = new ArrayList<>(chunk.size());
+        for (BulkAssignmentItem item : chunk.values()) {
+            if (liveUserIds.contains(item.getUserId())) {
+                continue;
+            }
+            UserCustomRole assignment = new UserCustomRole();
+            assignment.setUserId(item.getUserId());
+            assignment.setUsername(item.getUsername());
+            assignment.setExpiresAt(item.getExpiresAt());
+            assignment.setCustomRole(role);
+            assignments.add(assignment);
+        }
+        userCustomRoleRepository.saveAll(assignments);
+
+        // Sends the batch and keeps the persistence context from growing with the input
+        entityManager.flush();
+        entityManager.clear();
+        counts.inserted += assignments.size() - expiredIds.size();
+        counts.renewed += expiredIds.size();
+    }
+
+    /**
+     * False when the user holds a live assignment of the role. An expired one is archived and
+     * removed, so the caller can insert the new assignment without waiting for the sweeper.
+     */
+    private boolean replaceExpiredAssignment(String userId, CustomRole role) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> expiredIds = new ArrayList<>();
+        for (Object[] existing : userCustomRoleRepository.findAssignmentTuples(role, List.of(userId))) {
+            if (isLive((LocalDateTime) existing[2], now)) {
+                return false;
+            }
+            expiredIds.add((Long) existing[0]);
+        }
+        archiveAssignments(expiredIds, now);
+        return true;
+    }
+
+    // Same rows the sweeper would have moved, so the history of the expired assignment is kept
+    private void archiveAssignments(List<Long> assignmentIds, LocalDateTime now) {
+        if (!assignmentIds.isEmpty()) {
+            archiveRepository.copyToArchive(assignmentIds, now);
+            archiveRepository.deleteAssignments(assignmentIds);
+        }
+    }
+
+    private static boolean isLive(LocalDateTime expiresAt, LocalDateTime now) {
+        return expiresAt == null || expiresAt.isAfter(now);
     }
 
     // Permission Rule operations
+    @Transactional(readOnly = true)
     public List<CustomPermissionRule> findAllPermissionRules() {
         return customPermissionRuleRepository.findAll();
     }
 
     public CustomPermissionRule savePermissionRule(CustomPermissionRule rule) {
-        return customPermissionRuleRepository.save(rule);
+        validateCondition(rule);
+        CustomPermissionRule savedRule = customPermissionRuleRepository.save(rule);
+        publishPolicyChange(PolicyChangedEvent.ChangeType.RULES);
+        auditTrail.recordChange("rule.create", describeRule(savedRule));
+        return savedRule;
     }
 
     public CustomPermissionRule updatePermissionRule(Long id, CustomPermissionRule ruleDetails) {
@@ -183,196 +460,273 @@ public class RolePermissionService {
         rule.setEffect(ruleDetails.getEffect());
         rule.setConditionType(ruleDetails.getConditionType());
         rule.setConditionValue(ruleDetails.getConditionValue());
+        validateCondition(rule);
 
-        return customPermissionRuleRepository.save(rule);
+        CustomPermissionRule savedRule = customPermissionRuleRepository.save(rule);
+        publishPolicyChange(PolicyChangedEvent.ChangeType.RULES);
+        auditTrail.recordChange("rule.update", describeRule(savedRule));
+        return savedRule;
     }
 
     public void deletePermissionRule(Long id) {
         customPermissionRuleRepository.deleteById(id);
+        publishPolicyChange(PolicyChangedEvent.ChangeType.RULES);
+        auditTrail.recordChange("rule.delete", "rule=" + id);
+    }
+
+    private void validateCondition(CustomPermissionRule rule) {
+        // Rejects invalid expressions before they reach the rule index
+        if (rule.getConditionType() == CustomPermissionRule.ConditionType.CUSTOM_CONDITION) {
+            ConditionCompiler.compile(rule.getConditionValue());
+        }
     }
 
     // Permission Evaluation
+    @Transactional(readOnly = true)
     public boolean hasPermission(String userId, CustomPermission.ResourceType resourceType,
                                 Long resourceId, CustomPermission.PermissionAction action) {
         return hasPermission(userId, resourceType, resourceId, action, null);
     }
 
+    @Transactional(readOnly = true)
     public boolean hasPermission(String userId, CustomPermission.ResourceType resourceType,
                                 Long resourceId, CustomPermission.PermissionAction action, Authentication authentication) {
-        System.out.println("Checking permission for userId: " + userId + ", resourceType: " + resourceType + ", action: " + action);
-        // Get user's custom roles from database
-        List<UserCustomRole> userRoles = findActiveRolesByUserId(userId);
-        System.out.println("Found " + userRoles.size() + " database roles for user: " + userId);
-
-        // Check if any role has the required permission
-        Set<CustomPermission> userPermissions = userRoles.stream()
-                .flatMap(role -> role.getCustomRole().getPermissions().stream())
-                .collect(Collectors.toSet());
-        System.out.println("User has " + userPermissions.size() + " permissions from database roles");
-
-        boolean hasPermission = userPermissions.stream()
-                .anyMatch(perm -> perm.getResourceType() == resourceType &&
-                                 (perm.getAction() == action || perm.getAction() == CustomPermission.PermissionAction.ALL));
-        System.out.println("Database permission check result: " + hasPermission);
-
-        // If no database roles found, check JWT roles
-        if (!hasPermission && userRoles.isEmpty() && authentication != null) {
-            System.out.println("No database roles found, checking JWT roles");
-            hasPermission = checkJwtRolesForPermission(authentication, resourceType, action);
-            System.out.println("JWT permission check result: " + hasPermission);
+        EvaluationContext context = createEvaluationContext(userId, authentication, null);
+        return hasPermission(context, resourceType, resourceId, action);
+    }
+
+    // Decisions on a resolved context are in memory and join a caller's transaction without opening one
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public boolean hasPermission(EvaluationContext context, CustomPermission.ResourceType resourceType,
+                                Long resourceId, CustomPermission.PermissionAction action) {
+        long startNanos = decisionLogger.isEnabled() ? System.nanoTime() : 0L;
+
+        if (!PermissionMatrix.allows(context.getPermissionMask(), resourceType, action)) {
+            decisionLogger.record(context, resourceType, resourceId, action, false, "no-role-permission", null, startNanos);
+            return false;
         }
 
-        if (!hasPermission) {
+        // Check for specific deny rules, most resources have none
+        DenyRuleIndex.ResourceRules denyRules = denyRuleIndex.rulesFor(resourceType, resourceId);
+        CustomPermissionRule denyRule = denyRules != null ? denyRules.findMatchingRule(context) : null;
+        if (denyRule != null) {
+            // Explicit deny overrides allow
+            decisionLogger.record(context, resourceType, resourceId, action, false, "deny-rule", denyRule.getId(), startNanos);
             return false;
         }
 
-        // Check for specific deny rules
-        List<CustomPermissionRule> denyRules = customPermissionRuleRepository
-                .findByResourceAndEffect(resourceType, resourceId, CustomPermissionRule.RuleEffect.DENY);
+        decisionLogger.record(context, resourceType, resourceId, action, true, "role-permission", null, startNanos);
+        return true;
+    }
 
-        for (CustomPermissionRule rule : denyRules) {
-            if (matchesCondition(rule, userId)) {
-                return false; // Explicit deny overrides allow
-            }
+    // Batch evaluation: the user's roles are loaded once and shared by every check
+    @Transactional(readOnly = true)
+    public List<Boolean> hasPermissions(String userId, List<PermissionCheckItem> checks) {
+        return hasPermissions(userId, checks, null);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Boolean> hasPermissions(String userId, List<PermissionCheckItem> checks, Authentication authentication) {
+        return hasPermissions(createEvaluationContext(userId, authentication, null), checks);
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<Boolean> hasPermissions(EvaluationContext context, List<PermissionCheckItem> checks) {
+        List<Boolean> decisions = new ArrayList<>(checks.size());
+        for (PermissionCheckItem check : checks) {
+            decisions.add(hasPermission(context, check.getPermission(), check.getResourceType(), check.getResourceId()));
+        }
+        return decisions;
+    }
+
+    /**
+     * Resolves the user's active roles and permission mask once. Callers making several decisions
+     * for the same user should create one context and pass it to every check.
+     */
+    @Transactional(readOnly = true)
+    public EvaluationContext createEvaluationContext(String userId, Authentication authentication,
+                                                     Map<String, Object> attributes) {
+        // The converter already resolved the caller, nothing to look up again
+        if (authentication instanceof LibraryAuthenticationToken token
+                && token.getLibraryPrincipal().getUserId().equals(userId)) {
+            return createEvaluationContext(token.getLibraryPrincipal(), attributes);
         }
 
-        return true;
+        // Get user's custom roles, cached until the earliest assignment expires
+        UserAuthorization userAuthorization = getUserAuthorization(userId);
+
+        // If no database roles found, fall back to the JWT roles
+        List<String> jwtRoles = authentication != null ? jwtRoleNames(authentication) : Collections.emptyList();
+        long permissionMask = permissionMask(userAuthorization, jwtRoles);
+
+        Map<String, Object> claims = null;
+        String username = null;
+        if (authentication != null && authentication.getPrincipal() instanceof Jwt jwt) {
+            claims = jwt.getClaims();
+            username = jwt.getClaimAsString("preferred_username");
+        }
+
+        return new EvaluationContext(userId, username, userAuthorization.getRoleIds(), userAuthorization.getRoleNames(),
+                claims, attributes, permissionMask, name -> conditionAttributeProvider.resolve(userId, name));
     }
 
-    private boolean checkJwtRolesForPermission(Authentication authentication, CustomPermission.ResourceType resourceType, CustomPermission.PermissionAction action) {
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public EvaluationContext createEvaluationContext(LibraryPrincipal principal, Map<String, Object> attributes) {
+        String userId = principal.getUserId();
+        return new EvaluationContext(userId, principal.getUsername(), principal.getCustomRoleIds(),
+                principal.getCustomRoleNames(), principal.getClaims(), attributes, principal.getPermissionMask(),
+                name -> conditionAttributeProvider.resolve(userId, name));
+    }
+
+    /**
+     * PermissionMatrix bits of the user's custom roles. Users without custom roles get the bits of
+     * the database roles named like their token roles.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public long permissionMask(UserAuthorization userAuthorization, Collection<String> tokenRoleNames) {
+        PermissionMatrix matrix = policyEngine.getMatrix();
+        long permissionMask = 0L;
+        for (Long roleId : userAuthorization.getRoleIds()) {
+            permissionMask |= matrix.roleMask(roleId);
+        }
+        if (userAuthorization.isEmpty()) {
+            // Any JWT role that matches a database role contributes its permissions
+            for (String roleName : tokenRoleNames) {
+                permissionMask |= matrix.roleMask(roleName);
+            }
+        }
+        return permissionMask;
+    }
+
+    @Transactional(readOnly = true)
+    public UserAuthorization getUserAuthorization(String userId) {
+        return userAuthorizationCache.get(userId, this::loadUserAuthorization);
+    }
+
+    private UserAuthorization loadUserAuthorization(String userId) {
+        // One statement: role ids, names and expiry only, permissions come from the compiled matrix
+        List<Object[]> assignments = userCustomRoleRepository.findActiveRoleTuplesByUserId(userId);
+
+        Set<Long> roleIds = new HashSet<>();
+        Set<String> roleNames = new HashSet<>();
+        Set<String> permissionNames = new HashSet<>();
+        PermissionMatrix matrix = policyEngine.getMatrix();
+        long expiresAtMillis = Long.MAX_VALUE;
+        for (Object[] assignment : assignments) {
+            Long roleId = (Long) assignment[0];
+            roleIds.add(roleId);
+            roleNames.add((String) assignment[1]);
+            // Includes permissions inherited from parent roles
+            permissionNames.addAll(matrix.rolePermissionNames(roleId));
+            LocalDateTime expiresAt = (LocalDateTime) assignment[2];
+            if (expiresAt != null) {
+                expiresAtMillis = Math.min(expiresAtMillis, expiresAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            }
+        }
+        return new UserAuthorization(userId, roleIds, roleNames, permissionNames, expiresAtMillis);
+    }
+
+    private static List<String> jwtRoleNames(Authentication authentication) {
         // Extract roles from JWT authorities
-        List<String> jwtRoles = authentication.getAuthorities().stream()
+        return authentication.getAuthorities().stream()
                 .map(GrantedAuthority::getAuthority)
                 .filter(auth -> auth.startsWith("ROLE_"))
                 .map(auth -> auth.substring(5)) // Remove "ROLE_" prefix
                 .collect(Collectors.toList());
-
-        // Check if any JWT role matches a database role with the required permission
-        for (String roleName : jwtRoles) {
-            Optional<CustomRole> roleOpt = findRoleByName(roleName);
-            if (roleOpt.isPresent()) {
-                CustomRole role = roleOpt.get();
-                boolean hasPermission = role.getPermissions().stream()
-                        .anyMatch(perm -> perm.getResourceType() == resourceType &&
-                                         (perm.getAction() == action || perm.getAction() == CustomPermission.PermissionAction.ALL));
-                if (hasPermission) {
-                    return true;
-                }
-            }
-        }
-
-        return false;
     }
 
     // Overloaded hasPermission method that takes string parameters
+    @Transactional(readOnly = true)
     public boolean hasPermission(Long userId, String permission, String resourceType, Long resourceId, Map<String, Object> context) {
         return hasPermission(String.valueOf(userId), permission, resourceType, resourceId, context);
     }
 
+    @Transactional(readOnly = true)
     public boolean hasPermission(String userId, String permission, String resourceType, Long resourceId, Map<String, Object> context) {
         return hasPermission(userId, permission, resourceType, resourceId, context, null);
     }
 
+    @Transactional(readOnly = true)
     public boolean hasPermission(String userId, String permission, String resourceType, Long resourceId, Map<String, Object> context, Authentication authentication) {
-        try {
-            // Convert string parameters to enums
-            CustomPermission.ResourceType rt = CustomPermission.ResourceType.valueOf(resourceType);
-            CustomPermission.PermissionAction action = mapPermissionToAction(permission);
-
-            return hasPermission(userId, rt, resourceId, action, authentication);
-        } catch (IllegalArgumentException e) {
-            // If conversion fails, deny permission
+        return hasPermission(createEvaluationContext(userId, authentication, context), permission, resourceType, resourceId);
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public boolean hasPermission(EvaluationContext context, String permission, String resourceType, Long resourceId) {
+        // Unknown resource types are denied, unknown permission names check ALL
+        CustomPermission.ResourceType rt = PermissionRegistry.resourceType(resourceType);
+        if (rt == null) {
             return false;
         }
+        return hasPermission(context, rt, resourceId, permissionRegistry.checkAction(permission));
+    }
+
+    /**
+     * Checks a permission by its {@link PermissionRegistry} id, against the resource type and action
+     * the permission has in the table. Unknown ids and deleted permissions are denied.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public boolean hasPermission(EvaluationContext context, int permissionId, Long resourceId) {
+        CustomPermission.ResourceType resourceType = permissionRegistry.resourceTypeOf(permissionId);
+        CustomPermission.PermissionAction action = permissionRegistry.actionOf(permissionId);
+        if (resourceType == null || action == null) {
+            return false;
+        }
+        return hasPermission(context, resourceType, resourceId, action);
     }
 
-    private CustomPermission.PermissionAction mapPermissionToAction(String permission) {
-        // Map permission strings to actions
-        switch (permission.toUpperCase()) {
-            case "READ_BOOK":
-            case "READ_USER":
-            case "READ_ORDER":
-                return CustomPermission.PermissionAction.READ;
-            case "CREATE_BOOK":
-            case "CREATE_USER":
-            case "CREATE_ORDER":
-                return CustomPermission.PermissionAction.WRITE;
-            case "UPDATE_BOOK":
-            case "UPDATE_USER":
-                return CustomPermission.PermissionAction.WRITE;
-            case "DELETE_BOOK":
-            case "DELETE_USER":
-                return CustomPermission.PermissionAction.DELETE;
-            case "RENT_BOOK":
-            case "RETURN_BOOK":
-                return CustomPermission.PermissionAction.WRITE;
-            default:
-                return CustomPermission.PermissionAction.ALL;
-        }
+    private void publishPolicyChange(PolicyChangedEvent.ChangeType changeType) {
+        eventPublisher.publishEvent(new PolicyChangedEvent(changeType));
     }
 
-    private boolean matchesCondition(CustomPermissionRule rule, String userId) {
-        switch (rule.getConditionType()) {
-            case USER_ID:
-                return userId.equals(rule.getConditionValue());
-            case USERNAME:
-                // This would require additional user info, for now return false
-                return false;
-            case USER_ROLE:
-                // Check if user has the specified role
-                List<UserCustomRole> userRoles = findActiveRolesByUserId(userId);
-                return userRoles.stream()
-                        .anyMatch(ur -> ur.getCustomRole().getName().equals(rule.getConditionValue()));
-            case CUSTOM_CONDITION:
-                // For custom conditions, we'd need a more sophisticated evaluation
-                // For now, support simple conditions like "user_id=2"
-                return evaluateCustomCondition(rule.getConditionValue(), userId);
-            default:
-                return false;
-        }
+    private void publishAssignmentChange(String userId) {
+        eventPublisher.publishEvent(new PolicyChangedEvent(PolicyChangedEvent.ChangeType.ASSIGNMENTS, userId));
     }
 
-    private boolean evaluateCustomCondition(String condition, String userId) {
-        // Simple condition evaluation - can be extended
-        if (condition.startsWith("user_id=")) {
-            String expectedUserId = condition.substring("user_id=".length());
-            return userId.equals(expectedUserId);
-        }
-        return false;
+    private static String permissionIds(CustomRole role) {
+        return role.getPermissions() == null ? "[]" : role.getPermissions().stream()
+                .map(CustomPermission::getId)
+                .filter(Objects::nonNull)
+                .sorted()
+                .collect(Collectors.toList())
+                .toString();
+    }
+
+    private static String describePermission(CustomPermission permission) {
+        return "permission=" + permission.getId() + " name=" + permission.getName()
+                + " resourceType=" + permission.getResourceType() + " action=" + permission.getAction();
+    }
+
+    private static String describeRule(CustomPermissionRule rule) {
+        return "rule=" + rule.getId() + " resource=" + rule.getResourceType() + ":" + rule.getResourceId()
+                + " effect=" + rule.getEffect() + " condition=" + rule.getConditionType() + ":" + rule.getConditionValue();
     }
 
     // Get all permissions for a user
+    @Transactional(readOnly = true)
     public Set<String> getUserPermissions(String userId) {
-        List<UserCustomRole> userRoles = findActiveRolesByUserId(userId);
-
-        return userRoles.stream()
-                .flatMap(role -> role.getCustomRole().getPermissions().stream())
-                .map(CustomPermission::getName)
-                .collect(Collectors.toSet());
+        return getUserAuthorization(userId).getPermissionNames();
     }
 
     // Get all roles for a user
+    @Transactional(readOnly = true)
     public Set<String> getUserRoles(String userId) {
-        return findActiveRolesByUserId(userId).stream()
-                .map(role -> role.getCustomRole().getName())
-                .collect(Collectors.toSet());
+        return getUserAuthorization(userId).getRoleNames();
     }
 
     // Get all role names for a user by ID (for JWT authentication converter)
+    @Transactional(readOnly = true)
     public List<String> getUserRoleNames(String userId) {
-        return findActiveRolesByUserId(userId).stream()
-                .map(role -> role.getCustomRole().getName())
-                .collect(Collectors.toList());
+        return new ArrayList<>(getUserAuthorization(userId).getRoleNames());
     }
 
     // Assign a role to a user
     public void assignRoleToUser(String userId, Long roleId) {
         CustomRole role = customRoleRepository.findById(roleId)
-                .orElseThrow(() -> new RuntimeException("Role not found"));
+                .orElseThrow(() -> new RoleNotFoundException(roleId));
 
         // Check if user already has this role
-        boolean alreadyHasRole = userCustomRoleRepository.existsByUserIdAndCustomRole(userId, role);
-        if (alreadyHasRole) {
+        if (!replaceExpiredAssignment(userId, role)) {
             throw new RuntimeException("User already has this role");
         }
 
@@ -380,5 +734,7 @@ public class RolePermissionService {
         userRole.setUserId(userId);
         userRole.setCustomRole(role);
         userCustomRoleRepository.save(userRole);
+        publishAssignmentChange(userId);
+        auditTrail.recordChange("assignment.create", "user=" + userId + " role=" + roleId);
     }
 }
\ No newline at end of file
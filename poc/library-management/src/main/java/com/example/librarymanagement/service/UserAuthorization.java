@@ -0,0 +1,55 @@
+package com.example.librarymanagement.service;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * A user's active role assignments reduced to what permission checks need.
+ * Cached by {@link UserAuthorizationCache} until the earliest assignment expiry.
+ */
+public class UserAuthorization {
+
+    private final String userId;
+    private final Set<Long> roleIds;
+    private final Set<String> roleNames;
+    private final Set<String> permissionNames;
+    // Epoch millis of the earliest expiresAt among the assignments, Long.MAX_VALUE when none expire
+    private final long expiresAtMillis;
+
+    public UserAuthorization(String userId, Set<Long> roleIds, Set<String> roleNames,
+                             Set<String> permissionNames, long expiresAtMillis) {
+        this.userId = userId;
+        this.roleIds = Collections.unmodifiableSet(roleIds);
+        this.roleNames = Collections.unmodifiableSet(roleNames);
+        this.permissionNames = Collections.unmodifiableSet(permissionNames);
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public Set<Long> getRoleIds() {
+        return roleIds;
+    }
+
+    public Set<String> getRoleNames() {
+        return roleNames;
+    }
+
+    public Set<String> getPermissionNames() {
+        return permissionNames;
+    }
+
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    public boolean isEmpty() {
+        return roleIds.isEmpty();
+    }
+
+    public boolean isExpired(long nowMillis) {
+        return nowMillis >= expiresAtMillis;
+    }
+}
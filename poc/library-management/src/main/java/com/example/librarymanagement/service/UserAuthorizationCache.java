@@ -0,0 +1,219 @@
+package com.example.librarymanagement.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Bounded LRU cache of {@link UserAuthorization} per user.
+ *
+ * An entry lives until the earliest expiresAt of the user's assignments: reads past that instant
+ * are misses, and a delay queue drained by a background thread removes the entry when it is due,
+ * so no fixed TTL is involved. Entries are dropped after assignment changes and the whole cache is
+ * cleared after role or permission changes.
+ */
+@Component
+public class UserAuthorizationCache {
+
+    @Value("${library.authorization-cache.max-size:10000}")
+    private int maxSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private LinkedHashMap<String, UserAuthorization> entries;
+
+    private final DelayQueue<Expiry> expiries = new DelayQueue<>();
+    private Thread expiryThread;
+
+    // Bumped on every invalidation so a load that raced with it is not stored
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    @PostConstruct
+    public void start() {
+        entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, UserAuthorization> eldest) {
+                if (size() > maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        expiryThread = new Thread(this::drainExpiries, "user-authorization-expiry");
+        expiryThread.setDaemon(true);
+        expiryThread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        expiryThread.interrupt();
+    }
+
+    public UserAuthorization get(String userId, Function<String, UserAuthorization> loader) {
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            UserAuthorization cached = entries.get(userId);
+            if (cached != null) {
+                if (!cached.isExpired(now)) {
+                    hits.increment();
+                    return cached;
+                }
+                entries.remove(userId);
+                expirations.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        misses.increment();
+        long loadGeneration = generation.get();
+        UserAuthorization loaded = loader.apply(userId);
+
+        lock.lock();
+        try {
+            if (generation.get() == loadGeneration && !loaded.isExpired(System.currentTimeMillis())) {
+                entries.put(userId, loaded);
+                if (loaded.getExpiresAtMillis() != Long.MAX_VALUE) {
+                    expiries.add(new Expiry(userId, loaded));
+                    purgeStaleExpiries();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return loaded;
+    }
+
+    public void invalidate(String userId) {
+        lock.lock();
+        try {
+            generation.incrementAndGet();
+            entries.remove(userId);
+            invalidations.increment();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            generation.incrementAndGet();
+            entries.clear();
+            expiries.clear();
+            invalidations.increment();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Ahead of the caches derived from this one, such as the converted token authorities
+    @Order(0)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPolicyChanged(PolicyChangedEvent event) {
+        if (!event.affectsAssignments()) {
+            return;
+        }
+        if (event.getChangeType() == PolicyChangedEvent.ChangeType.ASSIGNMENTS && event.getUserId() != null) {
+            invalidate(event.getUserId());
+        } else {
+            invalidateAll();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        int size;
+        lock.lock();
+        try {
+            size = entries.size();
+        } finally {
+            lock.unlock();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", size);
+        stats.put("maxSize", maxSize);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("evictions", evictions.sum());
+        stats.put("expirations", expirations.sum());
+        stats.put("invalidations", invalidations.sum());
+        return stats;
+    }
+
+    private void drainExpiries() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Expiry expiry = expiries.take();
+                lock.lock();
+                try {
+                    // Only remove the entry this timer was scheduled for, not a newer load
+                    if (entries.remove(expiry.userId, expiry.authorization)) {
+                        expirations.increment();
+                    }
+                    purgeStaleExpiries();
+                } finally {
+                    lock.unlock();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void purgeStaleExpiries() {
+        // Timers of entries that were already evicted or replaced would otherwise pile up
+        if (expiries.size() <= maxSize * 2) {
+            return;
+        }
+        Iterator<Expiry> iterator = expiries.iterator();
+        while (iterator.hasNext()) {
+            Expiry expiry = iterator.next();
+            // containsKey does not touch the LRU order, replaced entries' timers fire harmlessly
+            if (!entries.containsKey(expiry.userId)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static final class Expiry implements Delayed {
+        final String userId;
+        final UserAuthorization authorization;
+
+        Expiry(String userId, UserAuthorization authorization) {
+            this.userId = userId;
+            this.authorization = authorization;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(authorization.getExpiresAtMillis() - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(authorization.getExpiresAtMillis(), ((Expiry) other).authorization.getExpiresAtMillis());
+        }
+    }
+}
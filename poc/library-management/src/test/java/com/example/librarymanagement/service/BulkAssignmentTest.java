@@ -0,0 +1,76 @@
+package com.example.librarymanagement.service;
+
+import com.example.librarymanagement.dto.BulkAssignmentItem;
+import com.example.librarymanagement.dto.BulkAssignmentResponse;
+import com.example.librarymanagement.repository.UserCustomRoleArchiveRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bulk assignment skips live assignments and renews expired ones the sweeper has not archived yet.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "library.search.enabled=false",
+        "library.assignment-sweeper.enabled=false",
+        "library.policy-sync.poll-interval-ms=3600000",
+        "library.audit.directory=target/test-audit"
+})
+class BulkAssignmentTest {
+
+    @Autowired
+    private RolePermissionService rolePermissionService;
+
+    @Autowired
+    private UserCustomRoleArchiveRepository archiveRepository;
+
+    @Test
+    void expiredAssignmentsAreRenewedAndLiveOnesSkipped() {
+        Long studentId = roleId("Student");
+        LocalDateTime lastSemester = LocalDateTime.now().minusDays(1);
+        LocalDateTime nextSemester = LocalDateTime.now().plusMonths(4);
+        rolePermissionService.bulkAssignRole(studentId, List.of(
+                new BulkAssignmentItem("returning-student", null, lastSemester),
+                new BulkAssignmentItem("current-student", null, nextSemester)).iterator());
+        assertFalse(rolePermissionService.getUserRoles("returning-student").contains("Student"));
+        long archivedBefore = archiveRepository.count();
+
+        BulkAssignmentResponse response = rolePermissionService.bulkAssignRole(studentId, List.of(
+                new BulkAssignmentItem("returning-student", null, nextSemester),
+                new BulkAssignmentItem("current-student", null, nextSemester),
+                new BulkAssignmentItem("new-student", null, nextSemester)).iterator());
+
+        assertEquals(1, response.getInserted());
+        assertEquals(1, response.getRenewed());
+        assertEquals(1, response.getSkipped());
+        assertTrue(rolePermissionService.getUserRoles("returning-student").contains("Student"));
+        assertTrue(rolePermissionService.getUserRoles("new-student").contains("Student"));
+        // The expired assignment is kept in the archive, as the sweeper would have done
+        assertEquals(archivedBefore + 1, archiveRepository.count());
+    }
+
+    @Test
+    void singleAssignmentRenewsAnExpiredAssignment() {
+        Long teacherId = roleId("Teacher");
+        rolePermissionService.bulkAssignRole(teacherId, List.of(
+                new BulkAssignmentItem("returning-teacher", null, LocalDateTime.now().minusDays(1))).iterator());
+
+        rolePermissionService.assignRoleToUser("returning-teacher", teacherId);
+
+        assertTrue(rolePermissionService.getUserRoles("returning-teacher").contains("Teacher"));
+        assertThrows(RuntimeException.class, () -> rolePermissionService.assignRoleToUser("returning-teacher", teacherId));
+    }
+
+    private Long roleId(String name) {
+        return rolePermissionService.findRoleByName(name).orElseThrow().getId();
+    }
+}
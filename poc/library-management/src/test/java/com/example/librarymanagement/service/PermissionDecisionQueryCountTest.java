@@ -0,0 +1,124 @@
+package com.example.librarymanagement.service;
+
+import com.example.librarymanagement.entity.CustomPermission;
+import com.example.librarymanagement.entity.CustomPermissionRule;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A decision loads the caller's roles once and evaluates every DENY rule of the resource in memory,
+ * so the number of statements per decision does not depend on how many rules apply.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "library.search.enabled=false",
+        "library.assignment-sweeper.enabled=false",
+        "library.policy-sync.poll-interval-ms=3600000",
+        "library.audit.directory=target/test-audit"
+})
+class PermissionDecisionQueryCountTest {
+
+    private static final long BOOK_ID = 4242L;
+
+    @Autowired
+    private RolePermissionService rolePermissionService;
+
+    @Autowired
+    private UserAuthorizationCache userAuthorizationCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private int rulesCreated;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void statementsPerDecisionDoNotGrowWithTheRules() {
+        String userId = "query-count-user";
+        rolePermissionService.assignRoleToUser(userId, roleId("Librarian"));
+
+        addDenyRules(1);
+        long withOneRule = statementsPerDecision(userId);
+
+        addDenyRules(10);
+        long withElevenRules = statementsPerDecision(userId);
+
+        // The role projection, plus one active_rentals lookup shared by every custom condition
+        assertEquals(2, withOneRule);
+        assertEquals(withOneRule, withElevenRules);
+    }
+
+    @Test
+    void cachedDecisionRunsNoStatements() {
+        String userId = "cached-decision-user";
+        rolePermissionService.assignRoleToUser(userId, roleId("Librarian"));
+        rolePermissionService.hasPermission(userId, CustomPermission.ResourceType.BOOK, 1L,
+                CustomPermission.PermissionAction.READ);
+
+        statistics.clear();
+        assertTrue(rolePermissionService.hasPermission(userId, CustomPermission.ResourceType.BOOK, 1L,
+                CustomPermission.PermissionAction.READ));
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void decisionOnAResolvedContextOpensNoTransaction() {
+        String userId = "resolved-context-user";
+        rolePermissionService.assignRoleToUser(userId, roleId("Librarian"));
+        EvaluationContext context = rolePermissionService.createEvaluationContext(userId, null, null);
+
+        statistics.clear();
+        assertTrue(rolePermissionService.hasPermission(context, CustomPermission.ResourceType.BOOK, 1L,
+                CustomPermission.PermissionAction.READ));
+        assertTrue(rolePermissionService.hasPermission(context, "READ_BOOK", "BOOK", 1L));
+        assertEquals(0, statistics.getTransactionCount());
+        assertEquals(0, statistics.getConnectCount());
+    }
+
+    private long statementsPerDecision(String userId) {
+        userAuthorizationCache.invalidate(userId);
+        statistics.clear();
+        assertTrue(rolePermissionService.hasPermission(userId, CustomPermission.ResourceType.BOOK, BOOK_ID,
+                CustomPermission.PermissionAction.READ));
+        return statistics.getPrepareStatementCount();
+    }
+
+    // Rules on the book that do not match the user, so every one of them is evaluated
+    private void addDenyRules(int count) {
+        for (int i = 0; i < count; i++) {
+            int n = rulesCreated++;
+            rolePermissionService.savePermissionRule(denyRule(CustomPermissionRule.ConditionType.USER_ROLE, "Role" + n));
+            rolePermissionService.savePermissionRule(denyRule(CustomPermissionRule.ConditionType.CUSTOM_CONDITION,
+                    "active_rentals > " + (100 + n)));
+        }
+    }
+
+    private static CustomPermissionRule denyRule(CustomPermissionRule.ConditionType conditionType, String conditionValue) {
+        CustomPermissionRule rule = new CustomPermissionRule();
+        rule.setName("deny-" + conditionType + "-" + conditionValue);
+        rule.setResourceType(CustomPermission.ResourceType.BOOK);
+        rule.setResourceId(BOOK_ID);
+        rule.setEffect(CustomPermissionRule.RuleEffect.DENY);
+        rule.setConditionType(conditionType);
+        rule.setConditionValue(conditionValue);
+        return rule;
+    }
+
+    private Long roleId(String name) {
+        return rolePermissionService.findRoleByName(name).orElseThrow().getId();
+    }
+}
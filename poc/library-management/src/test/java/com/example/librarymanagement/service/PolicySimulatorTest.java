@@ -0,0 +1,93 @@
+package com.example.librarymanagement.service;
+
+import com.example.librarymanagement.dto.BulkAssignmentItem;
+import com.example.librarymanagement.dto.PolicyImpact;
+import com.example.librarymanagement.dto.PolicySimulationRequest;
+import com.example.librarymanagement.dto.PolicySimulationResponse;
+import com.example.librarymanagement.dto.SimulatedRuleChange;
+import com.example.librarymanagement.entity.CustomPermission;
+import com.example.librarymanagement.entity.CustomPermissionRule;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A simulation whose changed rule reads active_rentals loads the rental counts once for all users,
+ * so its statement count does not grow with the number of users.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "library.search.enabled=false",
+        "library.assignment-sweeper.enabled=false",
+        "library.policy-sync.poll-interval-ms=3600000",
+        "library.audit.directory=target/test-audit"
+})
+class PolicySimulatorTest {
+
+    private static final long BOOK_ID = 9001L;
+
+    @Autowired
+    private PolicySimulator policySimulator;
+
+    @Autowired
+    private RolePermissionService rolePermissionService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void statementsDoNotGrowWithTheUsers() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        assignStudents("simulated-a-", 50);
+        statistics.clear();
+        PolicySimulationResponse fewUsers = policySimulator.simulate(denyBusyReaders());
+        long fewUsersStatements = statistics.getPrepareStatementCount();
+
+        assignStudents("simulated-b-", 500);
+        statistics.clear();
+        PolicySimulationResponse manyUsers = policySimulator.simulate(denyBusyReaders());
+
+        assertEquals(fewUsersStatements, statistics.getPrepareStatementCount());
+        assertEquals(fewUsers.getUsersEvaluated() + 500, manyUsers.getUsersEvaluated());
+        assertTrue(lostReads(manyUsers) >= 550);
+    }
+
+    private PolicySimulationRequest denyBusyReaders() {
+        SimulatedRuleChange change = new SimulatedRuleChange();
+        change.setResourceType(CustomPermission.ResourceType.BOOK);
+        change.setResourceId(BOOK_ID);
+        change.setEffect(CustomPermissionRule.RuleEffect.DENY);
+        change.setConditionType(CustomPermissionRule.ConditionType.CUSTOM_CONDITION);
+        change.setConditionValue("active_rentals >= 0");
+        PolicySimulationRequest request = new PolicySimulationRequest();
+        request.setRuleChanges(List.of(change));
+        return request;
+    }
+
+    private static long lostReads(PolicySimulationResponse response) {
+        for (PolicyImpact impact : response.getImpacts()) {
+            if (Long.valueOf(BOOK_ID).equals(impact.getResourceId()) && impact.getAction() == CustomPermission.PermissionAction.READ) {
+                return impact.getLost();
+            }
+        }
+        return 0;
+    }
+
+    private void assignStudents(String prefix, int count) {
+        List<BulkAssignmentItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(new BulkAssignmentItem(prefix + i, null, null));
+        }
+        Long studentId = rolePermissionService.findRoleByName("Student").orElseThrow().getId();
+        rolePermissionService.bulkAssignRole(studentId, items.iterator());
+    }
+}
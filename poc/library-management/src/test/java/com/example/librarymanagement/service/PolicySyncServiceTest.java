@@ -0,0 +1,145 @@
+package com.example.librarymanagement.service;
+
+import com.example.librarymanagement.LibraryManagementApplication;
+import com.example.librarymanagement.entity.CustomPermission;
+import com.example.librarymanagement.entity.CustomPermissionRule;
+import com.example.librarymanagement.entity.CustomRole;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Two nodes sharing one H2 database: a policy change written on one node must reach the caches of
+ * the other through the policy_versions table alone.
+ */
+class PolicySyncServiceTest {
+
+    private static final String DATABASE_URL = "jdbc:h2:mem:policysync;DB_CLOSE_DELAY=-1";
+
+    private static final long SYNC_TIMEOUT_MILLIS = 10_000;
+
+    private static ConfigurableApplicationContext writer;
+    private static ConfigurableApplicationContext reader;
+
+    @BeforeAll
+    static void startNodes() {
+        // The first node creates the schema, the second one uses it as it is
+        writer = startNode("writer", "create");
+        reader = startNode("reader", "none");
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        if (reader != null) {
+            reader.close();
+        }
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    @Test
+    void assignmentOnOneNodeInvalidatesTheOtherNodesCache() {
+        String userId = "sync-assignment-user";
+        // Cached on the reader as a user without roles
+        assertTrue(service(reader).getUserRoles(userId).isEmpty());
+
+        service(writer).assignRoleToUser(userId, roleId(writer, "Librarian"));
+
+        awaitOnReader(() -> service(reader).getUserRoles(userId).contains("Librarian"));
+        assertTrue((Long) reader.getBean(PolicySyncService.class).getStats().get("appliedRemoteChanges") > 0);
+    }
+
+    @Test
+    void rolePermissionChangeReachesTheOtherNodesMatrix() {
+        String userId = "sync-role-user";
+        service(writer).assignRoleToUser(userId, roleId(writer, "Student"));
+        awaitOnReader(() -> canDeleteBooks(reader, userId) == Boolean.FALSE
+                && service(reader).getUserRoles(userId).contains("Student"));
+
+        CustomRole student = service(writer).findRoleByName("Student").orElseThrow();
+        CustomRole details = new CustomRole();
+        details.setName(student.getName());
+        details.setDescription(student.getDescription());
+        Set<CustomPermission> permissions = new HashSet<>(student.getPermissions());
+        permissions.add(service(writer).findPermissionByName("DELETE_BOOK").orElseThrow());
+        details.setPermissions(permissions);
+        service(writer).updateRole(student.getId(), details);
+
+        awaitOnReader(() -> canDeleteBooks(reader, userId));
+    }
+
+    @Test
+    void denyRuleOnOneNodeReachesTheOtherNodesRuleIndex() {
+        String userId = "sync-rule-user";
+        service(writer).assignRoleToUser(userId, roleId(writer, "Librarian"));
+        awaitOnReader(() -> readsBook(reader, userId, 77L));
+
+        CustomPermissionRule rule = new CustomPermissionRule();
+        rule.setName("deny-sync-rule-user");
+        rule.setResourceType(CustomPermission.ResourceType.BOOK);
+        rule.setResourceId(77L);
+        rule.setEffect(CustomPermissionRule.RuleEffect.DENY);
+        rule.setConditionType(CustomPermissionRule.ConditionType.USER_ID);
+        rule.setConditionValue(userId);
+        service(writer).savePermissionRule(rule);
+
+        awaitOnReader(() -> !readsBook(reader, userId, 77L));
+        assertFalse(readsBook(writer, userId, 77L));
+    }
+
+    private static ConfigurableApplicationContext startNode(String name, String ddlAuto) {
+        // Arguments rather than default properties, which application.properties would override
+        return new SpringApplicationBuilder(LibraryManagementApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=" + DATABASE_URL,
+                "--spring.jpa.hibernate.ddl-auto=" + ddlAuto,
+                "--library.policy-sync.poll-interval-ms=100",
+                "--library.search.enabled=false",
+                "--library.assignment-sweeper.enabled=false",
+                "--library.audit.directory=target/test-audit/" + name);
+    }
+
+    private static void awaitOnReader(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + SYNC_TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Change not visible on the reader after " + SYNC_TIMEOUT_MILLIS + " ms");
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("Interrupted");
+            }
+        }
+    }
+
+    private static boolean canDeleteBooks(ConfigurableApplicationContext node, String userId) {
+        return service(node).hasPermission(userId, CustomPermission.ResourceType.BOOK, 1L,
+                CustomPermission.PermissionAction.DELETE);
+    }
+
+    private static boolean readsBook(ConfigurableApplicationContext node, String userId, Long bookId) {
+        return service(node).hasPermission(userId, CustomPermission.ResourceType.BOOK, bookId,
+                CustomPermission.PermissionAction.READ);
+    }
+
+    private static RolePermissionService service(ConfigurableApplicationContext node) {
+        return node.getBean(RolePermissionService.class);
+    }
+
+    private static Long roleId(ConfigurableApplicationContext node, String name) {
+        return service(node).findRoleByName(name).orElseThrow().getId();
+    }
+}
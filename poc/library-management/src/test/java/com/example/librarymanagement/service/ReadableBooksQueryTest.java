@@ -0,0 +1,111 @@
+package com.example.librarymanagement.service;
+
+import com.example.librarymanagement.entity.Book;
+import com.example.librarymanagement.entity.CustomPermission;
+import com.example.librarymanagement.entity.CustomPermissionRule;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The readable book listing filters user id, username and role DENY rules inside its query and
+ * only binds the ids denied by CUSTOM_CONDITION rules.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "library.search.enabled=false",
+        "library.assignment-sweeper.enabled=false",
+        "library.policy-sync.poll-interval-ms=3600000",
+        "library.audit.directory=target/test-audit"
+})
+class ReadableBooksQueryTest {
+
+    private static final String USERNAME = "readable-books-name";
+
+    @Autowired
+    private RolePermissionService rolePermissionService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Test
+    void everyKindOfDenyRuleIsExcluded() {
+        String userId = "readable-books-user";
+        Long byUserId = denied("user-id", CustomPermissionRule.ConditionType.USER_ID, userId);
+        Long byUsername = denied("username", CustomPermissionRule.ConditionType.USERNAME, USERNAME);
+        Long byRole = denied("role", CustomPermissionRule.ConditionType.USER_ROLE, "Librarian");
+        Long byCondition = denied("condition", CustomPermissionRule.ConditionType.CUSTOM_CONDITION,
+                "role in (Librarian)");
+        Long otherUser = denied("other-user", CustomPermissionRule.ConditionType.USER_ID, "someone-else");
+
+        EvaluationContext context = librarian(userId);
+        Set<Long> readable = readableIds(context, Pageable.unpaged());
+
+        assertFalse(readable.contains(byUserId));
+        assertFalse(readable.contains(byUsername));
+        assertFalse(readable.contains(byRole));
+        assertFalse(readable.contains(byCondition));
+        assertTrue(readable.contains(otherUser));
+
+        // Page totals come from the count query and apply the same filter
+        Page<Book> firstPage = bookService.findReadableBooks(context, PageRequest.of(0, 1));
+        assertEquals(readable.size(), firstPage.getTotalElements());
+    }
+
+    @Test
+    void callerWithoutRoleNamesIsStillFiltered() {
+        String userId = "readable-books-no-roles";
+        Long byUserId = denied("no-roles", CustomPermissionRule.ConditionType.USER_ID, userId);
+
+        EvaluationContext context = new EvaluationContext(userId, USERNAME, Set.of(), Set.of(),
+                null, null, librarian(userId).getPermissionMask());
+
+        assertFalse(readableIds(context, Pageable.unpaged()).contains(byUserId));
+    }
+
+    private EvaluationContext librarian(String userId) {
+        rolePermissionService.assignRoleToUser(userId, roleId("Librarian"));
+        EvaluationContext resolved = rolePermissionService.createEvaluationContext(userId, null, null);
+        return new EvaluationContext(userId, USERNAME, resolved.getRoleIds(), resolved.getRoleNames(),
+                null, null, resolved.getPermissionMask());
+    }
+
+    private Set<Long> readableIds(EvaluationContext context, Pageable pageable) {
+        return bookService.findReadableBooks(context, pageable).getContent().stream()
+                .map(Book::getId)
+                .collect(Collectors.toSet());
+    }
+
+    // A new book with one DENY rule on it
+    private Long denied(String name, CustomPermissionRule.ConditionType conditionType, String conditionValue) {
+        Book book = new Book();
+        book.setTitle("Readable " + name);
+        book.setAuthor("Author");
+        book.setIsbn("readable-" + name);
+        Long bookId = bookService.saveBook(book).getId();
+
+        CustomPermissionRule rule = new CustomPermissionRule();
+        rule.setName("readable-deny-" + name);
+        rule.setResourceType(CustomPermission.ResourceType.BOOK);
+        rule.setResourceId(bookId);
+        rule.setEffect(CustomPermissionRule.RuleEffect.DENY);
+        rule.setConditionType(conditionType);
+        rule.setConditionValue(conditionValue);
+        rolePermissionService.savePermissionRule(rule);
+        return bookId;
+    }
+
+    private Long roleId(String name) {
+        return rolePermissionService.findRoleByName(name).orElseThrow().getId();
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.librarymanagement.service;
+
+import com.example.librarymanagement.entity.CustomPermission;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Resolving a user's roles and permissions is one projection query, whatever the number of roles
+ * and permissions, and no entities are loaded for it.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "library.search.enabled=false",
+        "library.assignment-sweeper.enabled=false",
+        "library.policy-sync.poll-interval-ms=3600000",
+        "library.audit.directory=target/test-audit"
+})
+class UserAuthorizationQueryTest {
+
+    private static final String USER_ID = "projection-user";
+
+    @Autowired
+    private RolePermissionService rolePermissionService;
+
+    @Autowired
+    private UserAuthorizationCache userAuthorizationCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        if (rolePermissionService.findRolesByUserId(USER_ID).isEmpty()) {
+            rolePermissionService.assignRoleToUser(USER_ID, roleId("Librarian"));
+            rolePermissionService.assignRoleToUser(USER_ID, roleId("Teacher"));
+        }
+    }
+
+    @Test
+    void loadUserAuthorizationRunsOneStatement() {
+        UserAuthorization authorization = loadOnce(() -> rolePermissionService.getUserAuthorization(USER_ID));
+
+        assertEquals(Set.of("Librarian", "Teacher"), authorization.getRoleNames());
+        assertTrue(authorization.getPermissionNames().contains("DELETE_BOOK"));
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void userPermissionsRunOneStatement() {
+        Set<String> permissions = loadOnce(() -> rolePermissionService.getUserPermissions(USER_ID));
+
+        assertTrue(permissions.containsAll(List.of("READ_BOOK", "CREATE_ORDER", "RETURN_BOOK")));
+        assertFalse(permissions.contains("DELETE_USER"));
+    }
+
+    @Test
+    void userRolesRunOneStatement() {
+        assertEquals(Set.of("Librarian", "Teacher"), loadOnce(() -> rolePermissionService.getUserRoles(USER_ID)));
+        assertEquals(2, loadOnce(() -> rolePermissionService.getUserRoleNames(USER_ID)).size());
+    }
+
+    @Test
+    void permissionCheckRunsOneStatement() {
+        assertTrue(loadOnce(() -> rolePermissionService.hasPermission(USER_ID, CustomPermission.ResourceType.BOOK,
+                1L, CustomPermission.PermissionAction.DELETE)));
+        assertFalse(loadOnce(() -> rolePermissionService.hasPermission(USER_ID, CustomPermission.ResourceType.USER,
+                1L, CustomPermission.PermissionAction.DELETE)));
+    }
+
+    @Test
+    void userWithoutRolesRunsOneStatement() {
+        assertTrue(loadOnce(() -> rolePermissionService.getUserRoles("user-without-roles")).isEmpty());
+    }
+
+    // Calls the loader on a cold cache and checks that it ran exactly one statement
+    private <T> T loadOnce(Supplier<T> loader) {
+        userAuthorizationCache.invalidateAll();
+        statistics.clear();
+        T result = loader.get();
+        assertEquals(1, statistics.getPrepareStatementCount());
+        return result;
+    }
+
+    private Long roleId(String name) {
+        return rolePermissionService.findRoleByName(name).orElseThrow().getId();
+    }
+}